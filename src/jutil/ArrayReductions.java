@@ -0,0 +1,290 @@
+package jutil;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Kernels of the primitive array reductions of {@link JMath}.
+ * <p>
+ * The loops are unrolled into four independent accumulators so the JIT can
+ * vectorize them and the CPU can overlap them. Arrays of at least
+ * {@value #PARALLEL_THRESHOLD} elements are split in halves on the common
+ * ForkJoinPool. Splits are always at the midpoint, so the result of a
+ * floating point sum doesn't depend on the number of threads.
+ */
+final class ArrayReductions {
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int SUM_BLOCK = 1 << 7;
+
+    private ArrayReductions() {
+    }
+
+    /**
+     * Reduction of an index range of an array.
+     */
+    @FunctionalInterface
+    interface RangeFunction<R> {
+        R apply(int from, int to);
+    }
+
+    /**
+     * Applies {@code leaf} to parts of {@code [0, length)} and combines the
+     * results in index order.
+     */
+    static <R> R reduce(int length, RangeFunction<R> leaf, BinaryOperator<R> combine) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (length < PARALLEL_THRESHOLD || parallelism < 2)
+            return leaf.apply(0, length);
+
+        int grain = Math.max(PARALLEL_THRESHOLD >>> 1, length / (4 * parallelism));
+        return ForkJoinPool.commonPool().invoke(new RangeTask<>(0, length, grain, leaf, combine));
+    }
+
+    static int min(int[] a, int from, int to) {
+        int m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from + 1;
+        for (; i + 3 < to; i += 4) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+            m2 = Math.min(m2, a[i + 2]);
+            m3 = Math.min(m3, a[i + 3]);
+        }
+        for (; i < to; i++) {
+            m0 = Math.min(m0, a[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    static int max(int[] a, int from, int to) {
+        int m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from + 1;
+        for (; i + 3 < to; i += 4) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+            m2 = Math.max(m2, a[i + 2]);
+            m3 = Math.max(m3, a[i + 3]);
+        }
+        for (; i < to; i++) {
+            m0 = Math.max(m0, a[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    static int[] minmax(int[] a, int from, int to) {
+        int min0 = a[from], min1 = min0, max0 = min0, max1 = min0;
+        int i = from + 1;
+        for (; i + 1 < to; i += 2) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+            min1 = Math.min(min1, a[i + 1]);
+            max1 = Math.max(max1, a[i + 1]);
+        }
+        if (i < to) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+        }
+        return new int[] { Math.min(min0, min1), Math.max(max0, max1) };
+    }
+
+    static int indexOf(int[] a, int value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (a[i] == value)
+                return i;
+        }
+        return -1;
+    }
+
+    static long sum(int[] a, int from, int to) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < to; i++) {
+            s0 += a[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    static long min(long[] a, int from, int to) {
+        long m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from + 1;
+        for (; i + 3 < to; i += 4) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+            m2 = Math.min(m2, a[i + 2]);
+            m3 = Math.min(m3, a[i + 3]);
+        }
+        for (; i < to; i++) {
+            m0 = Math.min(m0, a[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    static long max(long[] a, int from, int to) {
+        long m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from + 1;
+        for (; i + 3 < to; i += 4) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+            m2 = Math.max(m2, a[i + 2]);
+            m3 = Math.max(m3, a[i + 3]);
+        }
+        for (; i < to; i++) {
+            m0 = Math.max(m0, a[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    static long[] minmax(long[] a, int from, int to) {
+        long min0 = a[from], min1 = min0, max0 = min0, max1 = min0;
+        int i = from + 1;
+        for (; i + 1 < to; i += 2) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+            min1 = Math.min(min1, a[i + 1]);
+            max1 = Math.max(max1, a[i + 1]);
+        }
+        if (i < to) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+        }
+        return new long[] { Math.min(min0, min1), Math.max(max0, max1) };
+    }
+
+    static int indexOf(long[] a, long value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (a[i] == value)
+                return i;
+        }
+        return -1;
+    }
+
+    static long sum(long[] a, int from, int to) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < to; i++) {
+            s0 += a[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    static double min(double[] a, int from, int to) {
+        double m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from + 1;
+        for (; i + 3 < to; i += 4) {
+            m0 = Math.min(m0, a[i]);
+            m1 = Math.min(m1, a[i + 1]);
+            m2 = Math.min(m2, a[i + 2]);
+            m3 = Math.min(m3, a[i + 3]);
+        }
+        for (; i < to; i++) {
+            m0 = Math.min(m0, a[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    static double max(double[] a, int from, int to) {
+        double m0 = a[from], m1 = m0, m2 = m0, m3 = m0;
+        int i = from + 1;
+        for (; i + 3 < to; i += 4) {
+            m0 = Math.max(m0, a[i]);
+            m1 = Math.max(m1, a[i + 1]);
+            m2 = Math.max(m2, a[i + 2]);
+            m3 = Math.max(m3, a[i + 3]);
+        }
+        for (; i < to; i++) {
+            m0 = Math.max(m0, a[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    static double[] minmax(double[] a, int from, int to) {
+        double min0 = a[from], min1 = min0, max0 = min0, max1 = min0;
+        int i = from + 1;
+        for (; i + 1 < to; i += 2) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+            min1 = Math.min(min1, a[i + 1]);
+            max1 = Math.max(max1, a[i + 1]);
+        }
+        if (i < to) {
+            min0 = Math.min(min0, a[i]);
+            max0 = Math.max(max0, a[i]);
+        }
+        return new double[] { Math.min(min0, min1), Math.max(max0, max1) };
+    }
+
+    static int indexOf(double[] a, double value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Double.compare(a[i], value) == 0)
+                return i;
+        }
+        return -1;
+    }
+
+    /*
+     * Pairwise summation: the range is halved down to blocks that are summed
+     * with four accumulators, which bounds the rounding error by O(log n) and
+     * fixes the order of the additions.
+     */
+    static double sum(double[] a, int from, int to) {
+        if (to - from > SUM_BLOCK) {
+            int mid = (from + to) >>> 1;
+            return sum(a, from, mid) + sum(a, mid, to);
+        }
+
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < to; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static final class RangeTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final transient RangeFunction<R> leaf;
+        private final transient BinaryOperator<R> combine;
+
+        RangeTask(int from, int to, int grain, RangeFunction<R> leaf, BinaryOperator<R> combine) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.leaf = leaf;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= grain)
+                return leaf.apply(from, to);
+
+            int mid = (from + to) >>> 1;
+            RangeTask<R> left = new RangeTask<>(from, mid, grain, leaf, combine);
+            left.fork();
+            R right = new RangeTask<>(mid, to, grain, leaf, combine).compute();
+            return combine.apply(left.join(), right);
+        }
+    }
+}
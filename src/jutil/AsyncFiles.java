@@ -0,0 +1,276 @@
+package jutil;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous counterpart of {@link JFiles}.
+ * <p>
+ * Each method runs the {@link JFiles} method of the same name on a dedicated
+ * pool of I/O threads and returns a {@link CompletableFuture} of its result,
+ * so the calling thread never blocks on the disk. Failures complete the
+ * future exceptionally with the original exception.
+ * <p>
+ * At most {@code maxInFlight} operations run or wait at once. Further calls
+ * return a future that is already completed with a
+ * {@link RejectedExecutionException}, which lets callers apply backpressure.
+ * Cancelling a returned future with {@code cancel(true)} interrupts the
+ * operation if it is running. Its slot is freed once the operation has
+ * stopped, or right away if it hadn't started.
+ * <p>
+ * The pool threads are daemon threads that exit when idle. An instance can be
+ * closed to reject further calls and stop its threads.
+ */
+public final class AsyncFiles implements AutoCloseable {
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final int maxInFlight;
+    private final Semaphore slots;
+    private final ExecutorService executor;
+
+    /**
+     * Creates an instance that runs at most {@code maxInFlight} operations at
+     * once.
+     *
+     * @param maxInFlight the maximum number of pending operations
+     * @throws IllegalArgumentException if {@code maxInFlight} is less than 1
+     */
+    public AsyncFiles(int maxInFlight) {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("Max in flight must be greater than 0");
+
+        this.maxInFlight = maxInFlight;
+        this.slots = new Semaphore(maxInFlight);
+
+        String prefix = "AsyncFiles-" + POOL_COUNT.incrementAndGet() + "-";
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxInFlight, maxInFlight, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Returns the maximum number of pending operations.
+     *
+     * @return the maximum number of operations in flight
+     */
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Returns the number of operations currently running or waiting to run.
+     *
+     * @return the number of operations in flight
+     */
+    public int inFlight() {
+        return maxInFlight - slots.availablePermits();
+    }
+
+    /**
+     * Asynchronously counts the words of {@code file}.
+     *
+     * @param file the file
+     * @return future of the number of words in the file
+     * @see JFiles#countWordsLong(File)
+     */
+    public CompletableFuture<Long> countWords(File file) {
+        return submit(() -> JFiles.countWordsLong(file));
+    }
+
+    /**
+     * Asynchronously counts the lines of {@code file}.
+     *
+     * @param file the file
+     * @return future of the number of lines in the file
+     * @see JFiles#countLinesLong(File)
+     */
+    public CompletableFuture<Long> countLines(File file) {
+        return submit(() -> JFiles.countLinesLong(file));
+    }
+
+    /**
+     * Asynchronously reads the lines of {@code file}.
+     *
+     * @param file the file
+     * @return future of the list of the lines of the file
+     * @see JFiles#readLines(File)
+     */
+    public CompletableFuture<List<String>> readLines(File file) {
+        return submit(() -> JFiles.readLines(file));
+    }
+
+    /**
+     * Asynchronously reads the words of {@code file}.
+     *
+     * @param file the file
+     * @return future of the list of the words of the file
+     * @see JFiles#readWords(File)
+     */
+    public CompletableFuture<List<String>> readWords(File file) {
+        return submit(() -> JFiles.readWords(file));
+    }
+
+    /**
+     * Asynchronously reads {@code file} into a single String.
+     *
+     * @param file the file
+     * @return future of the file as a String
+     * @see JFiles#read(File)
+     */
+    public CompletableFuture<String> read(File file) {
+        return submit(() -> JFiles.read(file));
+    }
+
+    /**
+     * Asynchronously writes {@code text} into {@code file}.
+     *
+     * @param file   the file to write to
+     * @param text   the text to write to the file
+     * @param append {@code true} preserves the contents and {@code false}
+     *               overwrites them
+     * @return future that completes when the text is written
+     * @see JFiles#write(File, String, boolean)
+     */
+    public CompletableFuture<Void> write(File file, String text, boolean append) {
+        return submit(() -> {
+            JFiles.write(file, text, append);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously writes {@code text} into {@code file}, overwriting it.
+     *
+     * @param file the file to write to
+     * @param text the text to write to the file
+     * @return future that completes when the text is written
+     * @see JFiles#write(File, String)
+     */
+    public CompletableFuture<Void> write(File file, String text) {
+        return write(file, text, false);
+    }
+
+    /**
+     * Asynchronously writes {@code text} and a line separator into
+     * {@code file}.
+     *
+     * @param file   the file to write to
+     * @param text   the text to write to the file
+     * @param append {@code true} preserves the contents and {@code false}
+     *               overwrites them
+     * @return future that completes when the text is written
+     * @see JFiles#writeln(File, String, boolean)
+     */
+    public CompletableFuture<Void> writeln(File file, String text, boolean append) {
+        return submit(() -> {
+            JFiles.writeln(file, text, append);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously writes {@code text} and a line separator into
+     * {@code file}, overwriting it.
+     *
+     * @param file the file to write to
+     * @param text the text to write to the file
+     * @return future that completes when the text is written
+     * @see JFiles#writeln(File, String)
+     */
+    public CompletableFuture<Void> writeln(File file, String text) {
+        return writeln(file, text, false);
+    }
+
+    /**
+     * Rejects further operations and stops the threads once the pending
+     * operations are done.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> operation) {
+        Operation<T> result = new Operation<>(slots);
+        if (!slots.tryAcquire()) {
+            result.completeExceptionally(
+                    new RejectedExecutionException("Too many operations in flight: " + maxInFlight));
+            return result;
+        }
+
+        try {
+            result.task = executor.submit(() -> {
+                // a cancelled operation that never started has freed its slot already
+                if (!result.started.compareAndSet(false, true))
+                    return;
+                T value = null;
+                Throwable error = null;
+                try {
+                    if (!result.isDone())
+                        value = operation.call();
+                } catch (Throwable e) {
+                    error = e;
+                } finally {
+                    // freed before completing, so a caller that saw the result can submit again
+                    slots.release();
+                }
+                if (error != null)
+                    result.completeExceptionally(error);
+                else
+                    result.complete(value);
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Future that interrupts its running operation when cancelled.
+     * <p>
+     * The slot of the operation is released by whichever comes first of the
+     * operation starting, which releases it when it exits, and a cancel
+     * before it started.
+     */
+    private static final class Operation<T> extends CompletableFuture<T> {
+        final AtomicBoolean started = new AtomicBoolean();
+        private final Semaphore slots;
+        volatile Future<?> task;
+
+        Operation(Semaphore slots) {
+            this.slots = slots;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (!cancelled)
+                return false;
+
+            if (started.compareAndSet(false, true))
+                slots.release();
+            Future<?> t = task;
+            if (t != null)
+                t.cancel(mayInterruptIfRunning);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package jutil;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over an iterator of unknown size.
+ * <p>
+ * Each split copies the next batch of items into an array and returns an
+ * array spliterator over it, which splits evenly on its own. The batch starts
+ * small so that short or expensive sources still spread over several threads,
+ * and doubles with each split so that long sources aren't split into too many
+ * tasks.
+ *
+ * @param <T> the item type
+ */
+final class BatchSpliterator<T> implements Spliterator<T> {
+    static final int MIN_BATCH = 16;
+    private static final int MAX_BATCH = 1 << 20;
+
+    private final Iterator<? extends T> iterator;
+    private final int characteristics;
+    private int batch = MIN_BATCH;
+
+    BatchSpliterator(Iterator<? extends T> iterator, int characteristics) {
+        this.iterator = iterator;
+        this.characteristics = characteristics & ~(SIZED | SUBSIZED);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!iterator.hasNext())
+            return null;
+
+        Object[] items = new Object[batch];
+        int n = 0;
+        while (n < items.length && iterator.hasNext()) {
+            items[n++] = iterator.next();
+        }
+        batch = Math.min(MAX_BATCH, batch << 1);
+        return Spliterators.spliterator(items, 0, n, characteristics | SIZED | SUBSIZED);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        if (!iterator.hasNext())
+            return false;
+        action.accept(iterator.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        iterator.forEachRemaining(action);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+}
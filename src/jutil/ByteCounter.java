@@ -0,0 +1,165 @@
+package jutil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts lines or words over the raw bytes of UTF-8 encoded text.
+ * <p>
+ * Counters are fed consecutive buffers with {@link #update(ByteBuffer)} and
+ * keep their state between calls, so a multi-byte character or a
+ * {@code \r\n} pair may be split across buffers. No Strings are allocated.
+ * <p>
+ * Line and word boundaries follow the defaults of {@link java.util.Scanner}:
+ * lines end with {@code \r\n}, {@code \n}, {@code \r}, U+0085, U+2028 or
+ * U+2029 and words are separated by characters for which
+ * {@link Character#isWhitespace(int)} is true.
+ */
+abstract class ByteCounter {
+    private int pending;
+    private int pendingBytes;
+
+    /**
+     * Consumes the bytes between the position and the limit of {@code buf}.
+     * The position of {@code buf} is moved to its limit.
+     *
+     * @param buf the bytes to count
+     */
+    abstract void update(ByteBuffer buf);
+
+    /**
+     * Returns the count of everything consumed so far.
+     *
+     * @return the count
+     */
+    abstract long count();
+
+    /**
+     * Feeds a non-ASCII byte to the UTF-8 decoder.
+     *
+     * @param b the byte
+     * @return the decoded code point, or {@code -1} if more bytes are needed
+     */
+    final int decode(byte b) {
+        if ((b & 0xC0) == 0x80) {
+            if (pendingBytes == 0)
+                return 0xFFFD;
+            pending = (pending << 6) | (b & 0x3F);
+            return --pendingBytes == 0 ? pending : -1;
+        }
+        if ((b & 0xE0) == 0xC0) {
+            pending = b & 0x1F;
+            pendingBytes = 1;
+        } else if ((b & 0xF0) == 0xE0) {
+            pending = b & 0x0F;
+            pendingBytes = 2;
+        } else {
+            pending = b & 0x07;
+            pendingBytes = 3;
+        }
+        return -1;
+    }
+
+    static boolean isLineSeparator(int cp) {
+        return cp == 0x85 || cp == 0x2028 || cp == 0x2029;
+    }
+
+    /**
+     * Counts lines. A trailing line without a separator is counted.
+     */
+    static final class Lines extends ByteCounter {
+        private long lines;
+        private boolean afterCR;
+        private boolean inLine;
+
+        @Override
+        void update(ByteBuffer buf) {
+            long lines = this.lines;
+            boolean afterCR = this.afterCR;
+            boolean inLine = this.inLine;
+
+            for (int i = buf.position(), limit = buf.limit(); i < limit; i++) {
+                byte b = buf.get(i);
+                if (b == '\n') {
+                    if (!afterCR)
+                        lines++;
+                    afterCR = false;
+                    inLine = false;
+                } else if (b == '\r') {
+                    lines++;
+                    afterCR = true;
+                    inLine = false;
+                } else {
+                    afterCR = false;
+                    if (b >= 0) {
+                        inLine = true;
+                    } else {
+                        int cp = decode(b);
+                        if (cp >= 0 && isLineSeparator(cp)) {
+                            lines++;
+                            inLine = false;
+                        } else {
+                            inLine = true;
+                        }
+                    }
+                }
+            }
+            buf.position(buf.limit());
+
+            this.lines = lines;
+            this.afterCR = afterCR;
+            this.inLine = inLine;
+        }
+
+        @Override
+        long count() {
+            return inLine ? lines + 1 : lines;
+        }
+    }
+
+    /**
+     * Counts whitespace separated words.
+     */
+    static final class Words extends ByteCounter {
+        private static final boolean[] ASCII_WHITESPACE = new boolean[128];
+
+        static {
+            for (int c = 0; c < ASCII_WHITESPACE.length; c++) {
+                ASCII_WHITESPACE[c] = Character.isWhitespace(c);
+            }
+        }
+
+        private long words;
+        private boolean inWord;
+
+        @Override
+        void update(ByteBuffer buf) {
+            long words = this.words;
+            boolean inWord = this.inWord;
+
+            for (int i = buf.position(), limit = buf.limit(); i < limit; i++) {
+                byte b = buf.get(i);
+                boolean space;
+                if (b >= 0) {
+                    space = ASCII_WHITESPACE[b];
+                } else {
+                    int cp = decode(b);
+                    if (cp < 0)
+                        continue;
+                    space = Character.isWhitespace(cp);
+                }
+                if (!space && !inWord)
+                    words++;
+                inWord = !space;
+            }
+            buf.position(buf.limit());
+
+            this.words = words;
+            this.inWord = inWord;
+        }
+
+        @Override
+        long count() {
+            return words;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package jutil;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Append only buffer for a number of items that isn't known in advance.
+ * <p>
+ * Items are stored in segments that double in size, so growing never copies
+ * the items already added and the items are copied exactly once, into the
+ * final array. Segment {@code k} holds {@code FIRST_SEGMENT << k} items,
+ * which lets {@link #get(int)} find an item in constant time.
+ *
+ * @param <T> the item type
+ */
+final class ChunkedBuffer<T> {
+    private static final int FIRST_SEGMENT = 16;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private Object[][] segments = new Object[8][];
+    private int segmentCount;
+    private Object[] current;
+    private int position;
+    private int size;
+
+    /**
+     * Adds the remaining items of the iterator.
+     *
+     * @param iterator the iterator
+     */
+    void addAll(Iterator<? extends T> iterator) {
+        while (iterator.hasNext()) {
+            add(iterator.next());
+        }
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @param item the item
+     */
+    void add(T item) {
+        if (current == null || position == current.length)
+            grow();
+        current[position++] = item;
+        size++;
+    }
+
+    /**
+     * Returns the item at {@code index}, which must be less than the size.
+     *
+     * @param index the index
+     * @return the item
+     */
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        int segment = JMath.log2(index / FIRST_SEGMENT + 1);
+        long start = ((long) FIRST_SEGMENT << segment) - FIRST_SEGMENT;
+        return (T) segments[segment][(int) (index - start)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies the items into a new array of exactly the buffered size.
+     *
+     * @param componentType the component type of the array
+     * @return array of the items
+     */
+    T[] toArray(Class<?> componentType) {
+        @SuppressWarnings("unchecked")
+        T[] array = componentType == Object.class ? (T[]) new Object[size]
+                : (T[]) Array.newInstance(componentType, size);
+
+        int offset = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            Object[] segment = segments[i];
+            int length = segment == current ? position : segment.length;
+            System.arraycopy(segment, 0, array, offset, length);
+            offset += length;
+        }
+        return array;
+    }
+
+    private void grow() {
+        if (size >= MAX_ARRAY_SIZE)
+            throw new OutOfMemoryError("Too many items: " + size);
+
+        long length = current == null ? FIRST_SEGMENT : (long) current.length << 1;
+        length = Math.min(length, MAX_ARRAY_SIZE - size);
+        if (segmentCount == segments.length)
+            segments = Arrays.copyOf(segments, segmentCount << 1);
+
+        current = new Object[(int) length];
+        segments[segmentCount++] = current;
+        position = 0;
+    }
+}
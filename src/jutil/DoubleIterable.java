@@ -0,0 +1,38 @@
+package jutil;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Iterable of {@code double} values.
+ * <p>
+ * The values can be iterated without boxing through
+ * {@link PrimitiveIterator.OfDouble#nextDouble()}, while the iterable can still be
+ * used wherever an {@code Iterable<Double>} is expected.
+ *
+ * @see JPrimitiveIterable
+ */
+@FunctionalInterface
+public interface DoubleIterable extends Iterable<Double> {
+
+    /**
+     * Returns an iterator over the values.
+     * 
+     * @return a primitive iterator
+     */
+    @Override
+    PrimitiveIterator.OfDouble iterator();
+
+    /**
+     * Returns a spliterator over the values.
+     * <p>
+     * The default implementation has an unknown size.
+     * 
+     * @return a primitive spliterator
+     */
+    @Override
+    default Spliterator.OfDouble spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+    }
+}
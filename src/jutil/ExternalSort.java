@@ -0,0 +1,221 @@
+package jutil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts the lines of a file that may not fit in memory.
+ * <p>
+ * Lines are read into runs that fit in the memory budget. Each run is sorted
+ * with {@link Arrays#parallelSort(Object[], Comparator)} and spilled to a
+ * temporary file, then the runs are merged with a heap over buffered readers,
+ * at most {@value #MAX_FAN_IN} at a time. Input that fits in a single run is
+ * sorted in memory without temporary files. The sort is stable.
+ */
+final class ExternalSort {
+    private static final int MAX_FAN_IN = 64;
+    private static final long LINE_OVERHEAD = 56;
+    private static final int MIN_READ_BUFFER = 1 << 13;
+    private static final int MAX_READ_BUFFER = 1 << 20;
+
+    private final Comparator<? super String> comparator;
+    private final boolean distinct;
+    private final long memoryBudget;
+    private final File tempDir;
+    private final List<File> tempFiles = new ArrayList<>();
+
+    private ExternalSort(Comparator<? super String> comparator, boolean distinct, long memoryBudget, File tempDir) {
+        this.comparator = comparator;
+        this.distinct = distinct;
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+    }
+
+    static void sort(File in, File out, Comparator<? super String> comparator, long memoryBudget, boolean distinct)
+            throws IOException {
+        File tempDir = out.getAbsoluteFile().getParentFile();
+        ExternalSort sort = new ExternalSort(comparator, distinct, memoryBudget, tempDir);
+        try {
+            sort.run(in, out);
+        } finally {
+            for (File f : sort.tempFiles) {
+                f.delete();
+            }
+        }
+    }
+
+    private void run(File in, File out) throws IOException {
+        List<File> runs = new ArrayList<>();
+        List<String> run = new ArrayList<>();
+        long runBytes = 0;
+
+        try (TextReader reader = JFiles.newTextReader(in)) {
+            CharSequence line;
+            while ((line = reader.nextLine()) != null) {
+                String s = line.toString();
+                run.add(s);
+                runBytes += LINE_OVERHEAD + 2L * s.length();
+                if (runBytes >= memoryBudget) {
+                    runs.add(spill(run));
+                    run = new ArrayList<>();
+                    runBytes = 0;
+                }
+            }
+        }
+
+        if (runs.isEmpty()) {
+            String[] lines = sorted(run);
+            try (Writer writer = outputWriter(out)) {
+                for (String line : lines) {
+                    if (line != null)
+                        writeLine(writer, line, System.lineSeparator());
+                }
+            }
+            return;
+        }
+        if (!run.isEmpty())
+            runs.add(spill(run));
+        run = null;
+
+        while (runs.size() > MAX_FAN_IN) {
+            List<File> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MAX_FAN_IN) {
+                List<File> group = runs.subList(i, Math.min(runs.size(), i + MAX_FAN_IN));
+                File next = newRunFile();
+                try (Writer writer = runWriter(next)) {
+                    merge(group, writer, "\n");
+                }
+                for (File f : group) {
+                    f.delete();
+                }
+                merged.add(next);
+            }
+            runs = merged;
+        }
+
+        try (Writer writer = outputWriter(out)) {
+            merge(runs, writer, System.lineSeparator());
+        }
+    }
+
+    /*
+     * Sorts the run and removes duplicates if needed. Removed duplicates are
+     * left as null.
+     */
+    private String[] sorted(List<String> run) {
+        String[] lines = run.toArray(new String[0]);
+        Arrays.parallelSort(lines, comparator);
+        if (distinct) {
+            String previous = null;
+            for (int i = 0; i < lines.length; i++) {
+                if (previous != null && comparator.compare(previous, lines[i]) == 0) {
+                    lines[i] = null;
+                } else {
+                    previous = lines[i];
+                }
+            }
+        }
+        return lines;
+    }
+
+    private File spill(List<String> run) throws IOException {
+        String[] lines = sorted(run);
+        run.clear();
+
+        File f = newRunFile();
+        try (Writer writer = runWriter(f)) {
+            for (String line : lines) {
+                if (line != null)
+                    writeLine(writer, line, "\n");
+            }
+        }
+        return f;
+    }
+
+    private void merge(List<File> runs, Writer writer, String separator) throws IOException {
+        int bufferSize = (int) Math.max(MIN_READ_BUFFER, Math.min(MAX_READ_BUFFER, memoryBudget / (runs.size() + 1)));
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(runs.size(), (a, b) -> {
+            int c = comparator.compare(a.line, b.line);
+            return c != 0 ? c : Integer.compare(a.run, b.run);
+        });
+
+        List<BufferedReader> readers = new ArrayList<>(runs.size());
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(runs.get(i)), StandardCharsets.UTF_8), bufferSize);
+                readers.add(reader);
+                Cursor cursor = new Cursor(reader, i);
+                if (cursor.advance())
+                    heap.add(cursor);
+            }
+
+            String previous = null;
+            while (!heap.isEmpty()) {
+                Cursor cursor = heap.poll();
+                if (!distinct || previous == null || comparator.compare(previous, cursor.line) != 0) {
+                    writeLine(writer, cursor.line, separator);
+                    previous = cursor.line;
+                }
+                if (cursor.advance())
+                    heap.add(cursor);
+            }
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static void writeLine(Writer writer, String line, String separator) throws IOException {
+        writer.write(line);
+        writer.write(separator);
+    }
+
+    private File newRunFile() throws IOException {
+        File f = File.createTempFile("jutil-sort", ".run", tempDir);
+        tempFiles.add(f);
+        return f;
+    }
+
+    private static Writer runWriter(File f) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8));
+    }
+
+    private static Writer outputWriter(File f) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f), Charset.defaultCharset()));
+    }
+
+    /**
+     * The current line of a run.
+     */
+    private static final class Cursor {
+        final BufferedReader reader;
+        final int run;
+        String line;
+
+        Cursor(BufferedReader reader, int run) {
+            this.reader = reader;
+            this.run = run;
+        }
+
+        boolean advance() throws IOException {
+            line = reader.readLine();
+            return line != null;
+        }
+    }
+}
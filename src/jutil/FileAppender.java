@@ -0,0 +1,308 @@
+package jutil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Long lived appender for high volume appends to a single file.
+ * <p>
+ * Appends from any number of threads are placed on a lock-free queue and
+ * written by a background thread in batches. A batch is written once
+ * {@code batchSize} texts are pending or the oldest pending text has waited
+ * {@code maxLatency}, whichever comes first, with a single write call. When
+ * {@code fsync} is enabled every batch is forced to the storage device before
+ * it counts as written, so one fsync covers the whole batch.
+ * <p>
+ * Text is encoded with the default charset, the same as
+ * {@link JFiles#write(File, String, boolean)}. The appender must be closed to
+ * write the remaining texts and release the file.
+ */
+public final class FileAppender implements Closeable {
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final long DEFAULT_MAX_LATENCY_MILLIS = 10;
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    private final File file;
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final int batchSize;
+    private final long maxLatencyNanos;
+    private final boolean fsync;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong appended = new AtomicLong();
+    /** number of appends in progress, with the sign bit set once closed */
+    private final AtomicInteger state = new AtomicInteger();
+    private final Object writtenLock = new Object();
+    private final Thread flusher;
+
+    private volatile long written;
+    private volatile long flushTarget;
+    private volatile boolean idle;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * Creates an appender that writes batches of up to 1024 texts at most 10
+     * milliseconds after they are appended, without fsync.
+     *
+     * @param file the file to append to. created if it doesn't exist
+     * @throws IOException if the file couldn't be opened
+     */
+    public FileAppender(File file) throws IOException {
+        this(file, DEFAULT_BATCH_SIZE, DEFAULT_MAX_LATENCY_MILLIS, TimeUnit.MILLISECONDS, false);
+    }
+
+    /**
+     * Creates an appender for {@code file}.
+     *
+     * @param file       the file to append to. created if it doesn't exist
+     * @param batchSize  the maximum number of texts written in one batch
+     * @param maxLatency the longest time an appended text waits to be written
+     * @param unit       the unit of {@code maxLatency}
+     * @param fsync      {@code true} forces every batch to the storage device
+     * @throws IOException              if the file couldn't be opened
+     * @throws NullPointerException     if {@code file} or {@code unit} is null
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1 or
+     *                                  {@code maxLatency} is negative
+     */
+    public FileAppender(File file, int batchSize, long maxLatency, TimeUnit unit, boolean fsync) throws IOException {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(unit);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        if (maxLatency < 0)
+            throw new IllegalArgumentException("Max latency can't be negative");
+
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.batchSize = batchSize;
+        this.maxLatencyNanos = unit.toNanos(maxLatency);
+        this.fsync = fsync;
+
+        this.flusher = new Thread(this::run, "FileAppender-" + file.getName());
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends {@code text} to the file.
+     * <p>
+     * The text is queued and written by the background thread. Texts appended
+     * by one thread are written in the order they were appended.
+     *
+     * @param text the text to append
+     * @throws IOException if the appender is closed or a previous batch failed
+     */
+    public void append(String text) throws IOException {
+        checkFailure();
+        int s;
+        do {
+            s = state.get();
+            if (s < 0)
+                throw new IOException("Appender is closed: " + file);
+        } while (!state.compareAndSet(s, s + 1));
+
+        long pending;
+        try {
+            pending = appended.incrementAndGet() - written;
+            queue.offer(new Pending(String.valueOf(text), System.nanoTime()));
+        } finally {
+            state.decrementAndGet();
+        }
+        if (idle || pending == batchSize)
+            LockSupport.unpark(flusher);
+    }
+
+    /**
+     * Appends {@code text} followed by the line separator to the file.
+     *
+     * @param text the text to append
+     * @throws IOException if the appender is closed or a previous batch failed
+     * @see #append(String)
+     */
+    public void appendln(String text) throws IOException {
+        append(text + System.lineSeparator());
+    }
+
+    /**
+     * Blocks until every text appended before this call has been written, and
+     * forced to the storage device if fsync is enabled.
+     *
+     * @throws IOException if a batch failed or the thread was interrupted
+     */
+    public void flush() throws IOException {
+        long target = appended.get();
+        if (written >= target) {
+            checkFailure();
+            return;
+        }
+
+        synchronized (writtenLock) {
+            if (flushTarget < target)
+                flushTarget = target;
+        }
+        LockSupport.unpark(flusher);
+
+        synchronized (writtenLock) {
+            while (written < target && failure == null && flusher.isAlive()) {
+                try {
+                    writtenLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while flushing " + file);
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Writes the remaining texts, stops the background thread and closes the
+     * file.
+     *
+     * @throws IOException if a batch failed or the file couldn't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        int s;
+        do {
+            s = state.get();
+            if (s < 0)
+                return;
+        } while (!state.compareAndSet(s, s | CLOSED));
+
+        // appends that got past the check are queued before the queue is drained
+        while (state.get() != CLOSED) {
+            Thread.onSpinWait();
+        }
+        closed = true;
+        LockSupport.unpark(flusher);
+
+        boolean interrupted = false;
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        try {
+            if (failure == null && !queue.isEmpty())
+                writeRemaining();
+        } finally {
+            channel.close();
+        }
+        checkFailure();
+    }
+
+    private void run() {
+        StringBuilder batch = new StringBuilder();
+        try {
+            while (true) {
+                if (queue.isEmpty()) {
+                    if (closed)
+                        return;
+                    idle = true;
+                    if (queue.isEmpty() && !closed)
+                        LockSupport.park(this);
+                    idle = false;
+                    continue;
+                }
+
+                // the deadline runs from when the oldest pending text was appended
+                long deadline = queue.peek().appendedAt + maxLatencyNanos;
+                long remaining;
+                while (appended.get() - written < batchSize && flushTarget <= written && !closed
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+
+                int count = 0;
+                Pending pending;
+                while (count < batchSize && (pending = queue.poll()) != null) {
+                    batch.append(pending.text);
+                    count++;
+                }
+                write(batch);
+                batch.setLength(0);
+
+                synchronized (writtenLock) {
+                    written += count;
+                    writtenLock.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException | Error e) {
+            failure = new IOException("Appender failed for " + file, e);
+            throw e;
+        } finally {
+            synchronized (writtenLock) {
+                writtenLock.notifyAll();
+            }
+        }
+    }
+
+    /*
+     * Appends that raced with close() may be queued after the flusher exited.
+     */
+    private void writeRemaining() throws IOException {
+        StringBuilder batch = new StringBuilder();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            batch.append(pending.text);
+        }
+        write(batch);
+    }
+
+    private void write(CharSequence text) throws IOException {
+        ByteBuffer bytes = encoder.encode(CharBuffer.wrap(text));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        if (fsync)
+            channel.force(false);
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null)
+            throw new IOException("Failed to append to " + file, e);
+    }
+
+    /**
+     * A queued text and the time it was appended.
+     */
+    private static final class Pending {
+        final String text;
+        final long appendedAt;
+
+        Pending(String text, long appendedAt) {
+            this.text = text;
+            this.appendedAt = appendedAt;
+        }
+    }
+}
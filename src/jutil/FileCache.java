@@ -0,0 +1,301 @@
+package jutil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache for the contents of frequently read files.
+ * <p>
+ * {@link #read(File)} and {@link #readLines(File)} return the same results as
+ * {@link JFiles#read(File)} and {@link JFiles#readLines(File)}, but reuse the
+ * result of a previous call as long as the size and modification time of the
+ * file are unchanged. Entries are keyed by canonical path.
+ * <p>
+ * The cache holds at most {@code maxBytes} of estimated memory. The least
+ * recently used entries are evicted first, and a result larger than the whole
+ * cache isn't cached. When several threads miss on the same file at once,
+ * only one of them reads it and the others wait for its result.
+ * <p>
+ * This class is thread safe.
+ */
+public final class FileCache {
+    private static final long ENTRY_OVERHEAD = 64;
+    private static final long STRING_OVERHEAD = 40;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<Key, FutureTask<Entry>> loading = new ConcurrentHashMap<>();
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache holding at most {@code maxBytes} of file contents.
+     *
+     * @param maxBytes the maximum estimated memory of the cached contents
+     * @throws IllegalArgumentException if {@code maxBytes} is negative
+     */
+    public FileCache(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("Max bytes can't be negative");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the contents of {@code file} as read by {@link JFiles#read(File)}.
+     *
+     * @param file the file to read
+     * @return the file as a String
+     * @throws IOException if the file couldn't be read
+     */
+    public String read(File file) throws IOException {
+        return (String) get(file, Kind.READ);
+    }
+
+    /**
+     * Returns the lines of {@code file} as read by
+     * {@link JFiles#readLines(File)}.
+     * <p>
+     * The returned list is shared between callers and can't be modified.
+     *
+     * @param file the file to read
+     * @return unmodifiable list of the lines of the file
+     * @throws IOException if the file couldn't be read
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> readLines(File file) throws IOException {
+        return (List<String>) get(file, Kind.READ_LINES);
+    }
+
+    /**
+     * Removes the cached contents of {@code file}.
+     *
+     * @param file the file
+     * @throws IOException if the canonical path of the file couldn't be resolved
+     */
+    public void invalidate(File file) throws IOException {
+        String path = file.getCanonicalPath();
+        synchronized (entries) {
+            for (Kind kind : Kind.values()) {
+                Entry entry = entries.remove(new Key(path, kind));
+                if (entry != null)
+                    weight -= entry.weight;
+            }
+        }
+    }
+
+    /**
+     * Removes all cached contents.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * Returns the number of reads answered from the cache.
+     *
+     * @return number of hits
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of reads that had to read the file.
+     *
+     * @return number of misses
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the size bound.
+     *
+     * @return number of evictions
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the estimated memory of the cached contents.
+     *
+     * @return the estimated size in bytes
+     */
+    public long weight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    /**
+     * Returns the maximum estimated memory of the cached contents.
+     *
+     * @return the maximum size in bytes
+     */
+    public long maxWeight() {
+        return maxBytes;
+    }
+
+    private Object get(File file, Kind kind) throws IOException {
+        Objects.requireNonNull(file);
+        Key key = new Key(file.getCanonicalPath(), kind);
+        long size = file.length();
+        long modified = file.lastModified();
+
+        Entry entry = current(key, size, modified);
+        if (entry != null) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+
+        // another thread may have stored the entry since the lookup above
+        FutureTask<Entry> task = new FutureTask<>(() -> {
+            Entry stored = current(key, size, modified);
+            return stored != null ? stored : load(file, kind);
+        });
+        FutureTask<Entry> existing = loading.putIfAbsent(key, task);
+        boolean loader = existing == null;
+        if (loader) {
+            task.run();
+            existing = task;
+        }
+
+        try {
+            entry = existing.get();
+            // store before the task is removed, so a thread missing in between
+            // finds one or the other and doesn't read the file again
+            if (loader)
+                store(key, entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + file, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        } finally {
+            if (loader)
+                loading.remove(key, task);
+        }
+        return entry.value;
+    }
+
+    private Entry current(Key key, long size, long modified) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return entry != null && entry.size == size && entry.modified == modified ? entry : null;
+    }
+
+    /*
+     * The size and modification time are taken before reading, so a change
+     * during the read makes the entry stale rather than wrongly current.
+     */
+    private static Entry load(File file, Kind kind) throws IOException {
+        long size = file.length();
+        long modified = file.lastModified();
+
+        if (kind == Kind.READ) {
+            String text = JFiles.read(file);
+            return new Entry(size, modified, text, ENTRY_OVERHEAD + weigh(text));
+        }
+
+        List<String> lines = JFiles.readLines(file);
+        long weight = ENTRY_OVERHEAD;
+        for (String line : lines) {
+            weight += 8 + weigh(line);
+        }
+        return new Entry(size, modified, Collections.unmodifiableList(lines), weight);
+    }
+
+    private static long weigh(String s) {
+        return STRING_OVERHEAD + 2L * s.length();
+    }
+
+    private void store(Key key, Entry entry) {
+        if (entry.weight > maxBytes)
+            return;
+
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null)
+                weight -= previous.weight;
+            weight += entry.weight;
+
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (weight > maxBytes && it.hasNext()) {
+                Map.Entry<Key, Entry> eldest = it.next();
+                if (eldest.getValue() == entry)
+                    continue;
+                weight -= eldest.getValue().weight;
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private enum Kind {
+        READ, READ_LINES
+    }
+
+    private static final class Key {
+        final String path;
+        final Kind kind;
+
+        Key(String path, Kind kind) {
+            this.path = path;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return path.equals(other.path) && kind == other.kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * path.hashCode() + kind.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        final long size;
+        final long modified;
+        final Object value;
+        final long weight;
+
+        Entry(long size, long modified, Object value, long weight) {
+            this.size = size;
+            this.modified = modified;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package jutil;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Iterator that applies a chain of map, filter, skip and take stages to a
+ * source iterator in a single pass.
+ * <p>
+ * Adjacent map and filter stages are composed into one function that returns
+ * {@link #SKIP} for filtered out elements, and skip and take are kept as
+ * counters, so a pipeline of any length is a single iterator that allocates
+ * nothing per element. A stage is fused only into an iterator that hasn't
+ * been advanced yet, otherwise it wraps it.
+ *
+ * @param <S> the source item type
+ * @param <T> the item type
+ */
+final class FusedIterator<S, T> implements Iterator<T> {
+    private static final Object SKIP = new Object();
+    private static final Object NONE = new Object();
+
+    private final Iterator<? extends S> source;
+    private final Function<Object, Object> stage;
+    private final long skip;
+    private final long limit;
+
+    private long skipped;
+    private long taken;
+    private Object next = NONE;
+
+    private FusedIterator(Iterator<? extends S> source, Function<Object, Object> stage, long skip, long limit) {
+        this.source = source;
+        this.stage = stage;
+        this.skip = skip;
+        this.limit = limit;
+    }
+
+    static <T, R> Iterator<R> map(Iterator<T> iterator, Function<? super T, ? extends R> mapper) {
+        FusedIterator<?, T> fused = fusable(iterator);
+        @SuppressWarnings("unchecked")
+        Function<Object, Object> f = (Function<Object, Object>) mapper;
+        // the stage runs before skipping, so mapping after a skip can't be fused
+        if (fused == null || fused.skip != 0)
+            return new FusedIterator<>(iterator, f, 0, Long.MAX_VALUE);
+
+        Function<Object, Object> stage = fused.stage;
+        Function<Object, Object> composed = stage == null ? f : s -> {
+            Object r = stage.apply(s);
+            return r == SKIP ? SKIP : f.apply(r);
+        };
+        // mapping doesn't change which elements are taken
+        return new FusedIterator<>(fused.source, composed, fused.skip, fused.limit);
+    }
+
+    static <T> Iterator<T> filter(Iterator<T> iterator, Predicate<? super T> predicate) {
+        FusedIterator<?, T> fused = fusable(iterator);
+        @SuppressWarnings("unchecked")
+        Predicate<Object> p = (Predicate<Object>) predicate;
+        if (fused == null || fused.skip != 0 || fused.limit != Long.MAX_VALUE)
+            return new FusedIterator<>(iterator, s -> p.test(s) ? s : SKIP, 0, Long.MAX_VALUE);
+
+        Function<Object, Object> stage = fused.stage;
+        Function<Object, Object> composed = stage == null ? s -> p.test(s) ? s : SKIP : s -> {
+            Object r = stage.apply(s);
+            return r == SKIP || !p.test(r) ? SKIP : r;
+        };
+        return new FusedIterator<>(fused.source, composed, 0, Long.MAX_VALUE);
+    }
+
+    static <T> Iterator<T> skip(Iterator<T> iterator, long n) {
+        FusedIterator<?, T> fused = fusable(iterator);
+        if (fused == null)
+            return new FusedIterator<>(iterator, null, n, Long.MAX_VALUE);
+
+        long limit = fused.limit == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, fused.limit - n);
+        return new FusedIterator<>(fused.source, fused.stage, saturatedAdd(fused.skip, n), limit);
+    }
+
+    static <T> Iterator<T> take(Iterator<T> iterator, long n) {
+        FusedIterator<?, T> fused = fusable(iterator);
+        if (fused == null)
+            return new FusedIterator<>(iterator, null, 0, n);
+        return new FusedIterator<>(fused.source, fused.stage, fused.skip, Math.min(fused.limit, n));
+    }
+
+    private static <T> FusedIterator<?, T> fusable(Iterator<T> iterator) {
+        if (!(iterator instanceof FusedIterator<?, ?>))
+            return null;
+        @SuppressWarnings("unchecked")
+        FusedIterator<?, T> fused = (FusedIterator<?, T>) iterator;
+        return fused.next == NONE && fused.skipped == 0 && fused.taken == 0 ? fused : null;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != NONE)
+            return true;
+        if (taken >= limit)
+            return false;
+
+        while (source.hasNext()) {
+            Object r = stage == null ? source.next() : stage.apply(source.next());
+            if (r == SKIP)
+                continue;
+            if (skipped < skip) {
+                skipped++;
+                continue;
+            }
+            next = r;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        @SuppressWarnings("unchecked")
+        T item = (T) next;
+        next = NONE;
+        taken++;
+        return item;
+    }
+}
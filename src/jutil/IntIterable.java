@@ -0,0 +1,38 @@
+package jutil;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Iterable of {@code int} values.
+ * <p>
+ * The values can be iterated without boxing through
+ * {@link PrimitiveIterator.OfInt#nextInt()}, while the iterable can still be
+ * used wherever an {@code Iterable<Integer>} is expected.
+ *
+ * @see JPrimitiveIterable
+ */
+@FunctionalInterface
+public interface IntIterable extends Iterable<Integer> {
+
+    /**
+     * Returns an iterator over the values.
+     * 
+     * @return a primitive iterator
+     */
+    @Override
+    PrimitiveIterator.OfInt iterator();
+
+    /**
+     * Returns a spliterator over the values.
+     * <p>
+     * The default implementation has an unknown size.
+     * 
+     * @return a primitive spliterator
+     */
+    @Override
+    default Spliterator.OfInt spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+    }
+}
@@ -0,0 +1,242 @@
+package jutil;
+
+import java.util.Objects;
+
+/**
+ * Utility class for fast approximations of elementary functions
+ * <p>
+ * The functions split a double into its IEEE-754 exponent and mantissa, look
+ * the top bits of the mantissa up in a 256 entry table and correct the rest
+ * with a short polynomial. They trade the last few digits of precision for
+ * speed, and each method documents its maximum error. Special values such as
+ * {@code NaN}, infinities and zero give the same results as in {@link Math}.
+ * The square root functions use the CPU's instruction, which beats any
+ * approximation.
+ */
+public final class JFastMath {
+    private JFastMath() {
+    }
+
+    private static final int TABLE_BITS = 8;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+
+    private static final long MANTISSA_MASK = 0x000FFFFFFFFFFFFFL;
+    private static final long EXPONENT_ONE = 0x3FF0000000000000L;
+    private static final double TWO_54 = 0x1p54;
+    private static final double NEAR_ONE_LOW = 1 - 1.0 / TABLE_SIZE;
+    private static final double NEAR_ONE_HIGH = 1 + 1.0 / TABLE_SIZE;
+    private static final double LN_2 = Math.log(2);
+    private static final double INV_LN_2 = 1 / LN_2;
+
+    /** log2(1 + i / 256) */
+    private static final double[] LOG2_TABLE = new double[TABLE_SIZE];
+    /** 1 / (1 + i / 256) */
+    private static final double[] INV_TABLE = new double[TABLE_SIZE];
+    /** 2^(i / 256) */
+    private static final double[] EXP2_TABLE = new double[TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double c = 1 + (double) i / TABLE_SIZE;
+            LOG2_TABLE[i] = Math.log(c) / LN_2;
+            INV_TABLE[i] = 1 / c;
+            EXP2_TABLE[i] = Math.pow(2, (double) i / TABLE_SIZE);
+        }
+    }
+
+    /**
+     * Returns the base 2 logarithm of {@code x}
+     * <p>
+     * The absolute error is below {@code 1e-12} and the relative error is below
+     * {@code 1e-10}, so results close to {@code 0} stay accurate too.
+     * 
+     * @param x a value
+     * @return base 2 log of x
+     */
+    public static double log2(double x) {
+        long bits = Double.doubleToRawLongBits(x);
+        int exponent = (int) (bits >>> 52) - 1023;
+        if (bits <= 0 || exponent == 1024 || exponent == -1023) {
+            if (x > 0 && x < Double.MIN_NORMAL)
+                return log2(x * TWO_54) - 54;
+            return Math.log(x) * INV_LN_2;
+        }
+
+        if (x > NEAR_ONE_LOW && x < NEAR_ONE_HIGH) {
+            // the table would cancel against the exponent here, so use more terms
+            // of the series for ln(1 + r) on r = x - 1, which is exact
+            double r = x - 1;
+            double ln1p = r * (1 + r * (-0.5 + r * (1.0 / 3 + r * (-0.25 + r * (0.2 + r * (-1.0 / 6 + r * (1.0 / 7)))))));
+            return ln1p * INV_LN_2;
+        }
+
+        int index = (int) (bits >>> (52 - TABLE_BITS)) & (TABLE_SIZE - 1);
+        double m = Double.longBitsToDouble(bits & MANTISSA_MASK | EXPONENT_ONE);
+        // m = c * (1 + r) with c = 1 + index / 256 and 0 <= r < 1 / 256
+        double r = (m - 1 - (double) index / TABLE_SIZE) * INV_TABLE[index];
+        double ln1p = r * (1 + r * (-0.5 + r * (1.0 / 3 + r * -0.25)));
+        return exponent + LOG2_TABLE[index] + ln1p * INV_LN_2;
+    }
+
+    /**
+     * Returns the natural logarithm of {@code x}
+     * <p>
+     * The absolute error is below {@code 1e-12}.
+     * 
+     * @param x a value
+     * @return natural log of x
+     * @see #log2(double)
+     */
+    public static double ln(double x) {
+        return log2(x) * LN_2;
+    }
+
+    /**
+     * Returns {@code 2^x}
+     * <p>
+     * The relative error is below {@code 1e-14} for results in the normal range.
+     * 
+     * @param x a value
+     * @return 2 raised to x
+     */
+    public static double exp2(double x) {
+        if (!(x > -1075 && x < 1024)) {
+            if (x != x)
+                return x;
+            return x > 0 ? Double.POSITIVE_INFINITY : 0;
+        }
+
+        double floor = Math.floor(x);
+        int n = (int) floor;
+        double f = x - floor;
+        if (f == 1) {
+            // x - floor(x) rounds up to 1 for tiny negative x such as -1e-20
+            f = 0;
+            n++;
+        }
+        int index = (int) (f * TABLE_SIZE);
+        double t = (f - (double) index / TABLE_SIZE) * LN_2;
+        double expm1 = t * (1 + t * (0.5 + t * (1.0 / 6 + t * (1.0 / 24))));
+        double y = EXP2_TABLE[index] * (1 + expm1);
+
+        if (n > -1022 && n < 1023)
+            return y * Double.longBitsToDouble((long) (n + 1023) << 52);
+        return Math.scalb(y, n);
+    }
+
+    /**
+     * Returns the square root of {@code x}
+     * <p>
+     * This is {@link Math#sqrt(double)}, which the JIT compiles to the CPU's
+     * square root instruction. It is exact and faster than any approximation,
+     * and is here so that code using this class doesn't need to mix in
+     * {@link Math}.
+     * 
+     * @param x a value
+     * @return the correctly rounded square root of x
+     */
+    public static double sqrt(double x) {
+        return Math.sqrt(x);
+    }
+
+    /**
+     * Returns {@code 1 / sqrt(x)}
+     * <p>
+     * This is computed with the CPU's square root instruction too, which is
+     * faster than refining an estimate from the exponent bits with Newton
+     * steps and gives a result within one ulp.
+     * 
+     * @param x a value
+     * @return inverse square root of x
+     */
+    public static double invSqrt(double x) {
+        return 1 / Math.sqrt(x);
+    }
+
+    /**
+     * Stores {@link #log2(double)} of each element of {@code x} in
+     * {@code result}. The arrays may be the same.
+     * 
+     * @param x      the values. can't be null
+     * @param result the array to store the results in. can't be null
+     * @throws NullPointerException     if an array is null
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static void log2(double[] x, double[] result) {
+        checkLengths(x, result);
+        for (int i = 0; i < x.length; i++) {
+            result[i] = log2(x[i]);
+        }
+    }
+
+    /**
+     * Stores {@link #ln(double)} of each element of {@code x} in
+     * {@code result}. The arrays may be the same.
+     * 
+     * @param x      the values. can't be null
+     * @param result the array to store the results in. can't be null
+     * @throws NullPointerException     if an array is null
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static void ln(double[] x, double[] result) {
+        checkLengths(x, result);
+        for (int i = 0; i < x.length; i++) {
+            result[i] = ln(x[i]);
+        }
+    }
+
+    /**
+     * Stores {@link #exp2(double)} of each element of {@code x} in
+     * {@code result}. The arrays may be the same.
+     * 
+     * @param x      the values. can't be null
+     * @param result the array to store the results in. can't be null
+     * @throws NullPointerException     if an array is null
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static void exp2(double[] x, double[] result) {
+        checkLengths(x, result);
+        for (int i = 0; i < x.length; i++) {
+            result[i] = exp2(x[i]);
+        }
+    }
+
+    /**
+     * Stores {@link #sqrt(double)} of each element of {@code x} in
+     * {@code result}. The arrays may be the same.
+     * 
+     * @param x      the values. can't be null
+     * @param result the array to store the results in. can't be null
+     * @throws NullPointerException     if an array is null
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static void sqrt(double[] x, double[] result) {
+        checkLengths(x, result);
+        for (int i = 0; i < x.length; i++) {
+            result[i] = Math.sqrt(x[i]);
+        }
+    }
+
+    /**
+     * Stores {@link #invSqrt(double)} of each element of {@code x} in
+     * {@code result}. The arrays may be the same.
+     * 
+     * @param x      the values. can't be null
+     * @param result the array to store the results in. can't be null
+     * @throws NullPointerException     if an array is null
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static void invSqrt(double[] x, double[] result) {
+        checkLengths(x, result);
+        for (int i = 0; i < x.length; i++) {
+            result[i] = invSqrt(x[i]);
+        }
+    }
+
+    private static void checkLengths(double[] x, double[] result) {
+        Objects.requireNonNull(x);
+        Objects.requireNonNull(result);
+        if (x.length != result.length)
+            throw new IllegalArgumentException("Arrays must have the same length");
+    }
+}
@@ -1,23 +1,59 @@
 package jutil;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Utility class for files
+ * <p>
+ * Every method opens its own reader or writer and closes it before returning,
+ * so the methods are safe to call concurrently from multiple threads.
  */
 public final class JFiles {
-    private static Scanner fileReader;
-    private static PrintWriter fileWriter;
-
     private static final boolean DEFAULT_APPEND = false;
 
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final long MAP_THRESHOLD = 1 << 20;
+    private static final long MAP_WINDOW = 1 << 26;
+    private static final long DEFAULT_CHUNK_SIZE = 1 << 23;
+    private static final int DEFAULT_TREE_CONCURRENCY = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+
     private JFiles() {
     }
 
@@ -28,16 +64,45 @@ public final class JFiles {
      * @param file the file
      * @return number of words in the file
      * @throws FileNotFoundException if the file isn't found
+     * @throws UncheckedIOException  if the file couldn't be read
+     * @throws ArithmeticException   if the count overflows an int
+     * @see #countWordsLong(File)
      */
     public static int countWords(File file) throws FileNotFoundException {
-        getScanner(file);
+        try {
+            return Math.toIntExact(countWordsLong(file));
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        int count = 0;
-        while (fileReader.hasNext()) {
-            fileReader.next();
-            count++;
+    /**
+     * Returns the number of tokens in {@code file} seperated by whitespace or
+     * newlines.
+     * <p>
+     * When the default charset is UTF-8 or US-ASCII the raw bytes of the file
+     * are scanned directly, large files through a memory mapping, without
+     * allocating a String per word.
+     * 
+     * @param file the file
+     * @return number of words in the file
+     * @throws FileNotFoundException if the file isn't found
+     * @throws IOException           if the file couldn't be read
+     */
+    public static long countWordsLong(File file) throws IOException {
+        if (!isByteScannable(Charset.defaultCharset())) {
+            try (Scanner fileReader = newScanner(file)) {
+                long count = 0;
+                while (fileReader.hasNext()) {
+                    fileReader.next();
+                    count++;
+                }
+                return count;
+            }
         }
-        return count;
+        return count(file, new ByteCounter.Words());
     }
 
     /**
@@ -48,15 +113,253 @@ public final class JFiles {
      * @param file the file
      * @return number of lines in the file
      * @throws FileNotFoundException if the file isn't found
+     * @throws UncheckedIOException  if the file couldn't be read
+     * @throws ArithmeticException   if the count overflows an int
+     * @see #countLinesLong(File)
      */
     public static int countLines(File file) throws FileNotFoundException {
-        getScanner(file);
-        int count = 0;
-        while (fileReader.hasNextLine()) {
-            fileReader.nextLine();
-            count++;
+        try {
+            return Math.toIntExact(countLinesLong(file));
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of lines in {@code file}.
+     * <p>
+     * A {@code \n} counts as a new line. When the default charset is UTF-8 or
+     * US-ASCII the raw bytes of the file are scanned directly, large files
+     * through a memory mapping, without allocating a String per line.
+     * 
+     * @param file the file
+     * @return number of lines in the file
+     * @throws FileNotFoundException if the file isn't found
+     * @throws IOException           if the file couldn't be read
+     */
+    public static long countLinesLong(File file) throws IOException {
+        if (!isByteScannable(Charset.defaultCharset())) {
+            try (Scanner fileReader = newScanner(file)) {
+                long count = 0;
+                while (fileReader.hasNextLine()) {
+                    fileReader.nextLine();
+                    count++;
+                }
+                return count;
+            }
         }
-        return count;
+        return count(file, new ByteCounter.Lines());
+    }
+
+    /**
+     * Returns the number of tokens in {@code file} seperated by whitespace or
+     * newlines, counting chunks of the file in parallel.
+     * <p>
+     * The file is split into chunks of about 8 MiB that end on a line boundary
+     * and the chunks are counted on the common {@link ForkJoinPool}.
+     * 
+     * @param file the file
+     * @return number of words in the file
+     * @throws FileNotFoundException if the file isn't found
+     * @throws IOException           if the file couldn't be read
+     * @see #countWordsParallel(File, long, ForkJoinPool)
+     */
+    public static long countWordsParallel(File file) throws IOException {
+        return countWordsParallel(file, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the number of tokens in {@code file} seperated by whitespace or
+     * newlines, counting chunks of the file in parallel.
+     * <p>
+     * The file is split into chunks of at least {@code chunkSize} bytes that end
+     * on a line boundary and the chunks are counted on {@code pool}. The result
+     * is the same as {@link #countWordsLong(File)}.
+     * 
+     * @param file      the file
+     * @param chunkSize the minimum number of bytes in a chunk
+     * @param pool      the pool to count the chunks on
+     * @return number of words in the file
+     * @throws FileNotFoundException    if the file isn't found
+     * @throws IOException              if the file couldn't be read
+     * @throws IllegalArgumentException if {@code chunkSize} is less than 1
+     */
+    public static long countWordsParallel(File file, long chunkSize, ForkJoinPool pool) throws IOException {
+        return countParallel(file, chunkSize, pool, ByteCounter.Words::new);
+    }
+
+    /**
+     * Returns the number of lines in {@code file}, counting chunks of the file
+     * in parallel.
+     * <p>
+     * The file is split into chunks of about 8 MiB that end on a line boundary
+     * and the chunks are counted on the common {@link ForkJoinPool}.
+     * 
+     * @param file the file
+     * @return number of lines in the file
+     * @throws FileNotFoundException if the file isn't found
+     * @throws IOException           if the file couldn't be read
+     * @see #countLinesParallel(File, long, ForkJoinPool)
+     */
+    public static long countLinesParallel(File file) throws IOException {
+        return countLinesParallel(file, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the number of lines in {@code file}, counting chunks of the file
+     * in parallel.
+     * <p>
+     * The file is split into chunks of at least {@code chunkSize} bytes that end
+     * on a line boundary and the chunks are counted on {@code pool}. The result
+     * is the same as {@link #countLinesLong(File)}.
+     * 
+     * @param file      the file
+     * @param chunkSize the minimum number of bytes in a chunk
+     * @param pool      the pool to count the chunks on
+     * @return number of lines in the file
+     * @throws FileNotFoundException    if the file isn't found
+     * @throws IOException              if the file couldn't be read
+     * @throws IllegalArgumentException if {@code chunkSize} is less than 1
+     */
+    public static long countLinesParallel(File file, long chunkSize, ForkJoinPool pool) throws IOException {
+        return countParallel(file, chunkSize, pool, ByteCounter.Lines::new);
+    }
+
+    /**
+     * Returns the total number of words in the files under {@code dir} that
+     * match {@code glob}.
+     * <p>
+     * The directory tree is walked and the files are counted concurrently.
+     * 
+     * @param dir  the root of the directory tree
+     * @param glob the files to count
+     * @return total number of words in the matching files
+     * @throws IOException if the tree couldn't be walked or a file couldn't be
+     *                     read
+     * @see #countLines(Path, String, int, BiConsumer)
+     */
+    public static long countWords(Path dir, String glob) throws IOException {
+        return countWords(dir, glob, DEFAULT_TREE_CONCURRENCY, null);
+    }
+
+    /**
+     * Returns the total number of words in the files under {@code dir} that
+     * match {@code glob}.
+     * <p>
+     * The files are counted on up to {@code concurrency} threads. The count of
+     * each file is passed to {@code perFile} as soon as it is known, on the
+     * calling thread.
+     * 
+     * @param dir         the root of the directory tree
+     * @param glob        the files to count
+     * @param concurrency the maximum number of files counted at once
+     * @param perFile     receives each file and its count. can be null
+     * @return total number of words in the matching files
+     * @throws IOException              if the tree couldn't be walked or a file
+     *                                  couldn't be read
+     * @throws IllegalArgumentException if {@code concurrency} is less than 1
+     * @see #countLines(Path, String, int, BiConsumer)
+     */
+    public static long countWords(Path dir, String glob, int concurrency, BiConsumer<? super Path, ? super Long> perFile)
+            throws IOException {
+        return sumFiles(dir, glob, concurrency, f -> countWordsLong(f.toFile()), perFile);
+    }
+
+    /**
+     * Returns the total number of lines in the files under {@code dir} that
+     * match {@code glob}.
+     * <p>
+     * The directory tree is walked and the files are counted concurrently.
+     * 
+     * @param dir  the root of the directory tree
+     * @param glob the files to count
+     * @return total number of lines in the matching files
+     * @throws IOException if the tree couldn't be walked or a file couldn't be
+     *                     read
+     * @see #countLines(Path, String, int, BiConsumer)
+     */
+    public static long countLines(Path dir, String glob) throws IOException {
+        return countLines(dir, glob, DEFAULT_TREE_CONCURRENCY, null);
+    }
+
+    /**
+     * Returns the total number of lines in the files under {@code dir} that
+     * match {@code glob}.
+     * <p>
+     * A {@code glob} without a {@code /}, such as {@code *.java}, is matched
+     * against file names and any other glob against paths relative to
+     * {@code dir}, such as {@code src/**}{@code /*.java}. The files are counted
+     * on up to {@code concurrency} threads. The count of each file is passed to
+     * {@code perFile} as soon as it is known, on the calling thread.
+     * 
+     * @param dir         the root of the directory tree
+     * @param glob        the files to count
+     * @param concurrency the maximum number of files counted at once
+     * @param perFile     receives each file and its count. can be null
+     * @return total number of lines in the matching files
+     * @throws IOException              if the tree couldn't be walked or a file
+     *                                  couldn't be read
+     * @throws IllegalArgumentException if {@code concurrency} is less than 1
+     */
+    public static long countLines(Path dir, String glob, int concurrency, BiConsumer<? super Path, ? super Long> perFile)
+            throws IOException {
+        return sumFiles(dir, glob, concurrency, f -> countLinesLong(f.toFile()), perFile);
+    }
+
+    /**
+     * Returns the lines containing {@code literal} in the files under
+     * {@code dir} that match {@code glob}.
+     * <p>
+     * The files are searched concurrently. The matches are sorted by path and
+     * line number.
+     * 
+     * @param dir     the root of the directory tree
+     * @param glob    the files to search
+     * @param literal the text to search for
+     * @return the matching lines
+     * @throws IOException if the tree couldn't be walked or a file couldn't be
+     *                     read
+     * @see #grep(Path, String, String, int, Consumer)
+     */
+    public static List<LineMatch> grep(Path dir, String glob, String literal) throws IOException {
+        List<LineMatch> matches = new ArrayList<>();
+        grep(dir, glob, literal, DEFAULT_TREE_CONCURRENCY, matches::add);
+        matches.sort(Comparator.comparing(LineMatch::path).thenComparingLong(LineMatch::lineNumber));
+        return matches;
+    }
+
+    /**
+     * Passes the lines containing {@code literal} in the files under
+     * {@code dir} that match {@code glob} to {@code sink}.
+     * <p>
+     * The files are searched on up to {@code concurrency} threads. The matches
+     * of each file are passed to {@code sink} in line order as soon as the file
+     * is searched, on the calling thread.
+     * 
+     * @param dir         the root of the directory tree
+     * @param glob        the files to search, as in
+     *                    {@link #countLines(Path, String, int, BiConsumer)}
+     * @param literal     the text to search for
+     * @param concurrency the maximum number of files searched at once
+     * @param sink        receives the matching lines
+     * @return number of matching lines
+     * @throws IOException              if the tree couldn't be walked or a file
+     *                                  couldn't be read
+     * @throws IllegalArgumentException if {@code concurrency} is less than 1
+     */
+    public static long grep(Path dir, String glob, String literal, int concurrency, Consumer<? super LineMatch> sink)
+            throws IOException {
+        Objects.requireNonNull(literal);
+        Objects.requireNonNull(sink);
+
+        long[] total = new long[1];
+        forEachFile(dir, glob, concurrency, f -> grep(f, literal), (f, matches) -> {
+            total[0] += matches.size();
+            matches.forEach(sink);
+        });
+        return total[0];
     }
 
     /**
@@ -67,16 +370,117 @@ public final class JFiles {
      * @param file the file
      * @return list of the lines of the file
      * @throws FileNotFoundException if the file isn't found
+     * @see FileCache#readLines(File)
      */
     public static List<String> readLines(File file) throws FileNotFoundException {
-        getScanner(file);
+        try (Scanner fileReader = newScanner(file)) {
+            List<String> tokens = new ArrayList<>();
 
-        List<String> tokens = new ArrayList<>();
+            while (fileReader.hasNextLine()) {
+                tokens.add(fileReader.nextLine());
+            }
+            return tokens;
+        }
+    }
 
-        while (fileReader.hasNextLine()) {
-            tokens.add(fileReader.nextLine());
+    /**
+     * Reads the lines of {@code file} into a list of strings, decoding chunks of
+     * the file in parallel.
+     * <p>
+     * The file is split into chunks of about 8 MiB that end on a line boundary
+     * and the chunks are decoded on the common {@link ForkJoinPool}.
+     * 
+     * @param file the file
+     * @return list of the lines of the file
+     * @throws FileNotFoundException if the file isn't found
+     * @throws IOException           if the file couldn't be read
+     * @see #readLinesParallel(File, long, ForkJoinPool)
+     */
+    public static List<String> readLinesParallel(File file) throws IOException {
+        return readLinesParallel(file, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads the lines of {@code file} into a list of strings, decoding chunks of
+     * the file in parallel.
+     * <p>
+     * The file is split into chunks of at least {@code chunkSize} bytes that end
+     * on a line boundary and the chunks are decoded on {@code pool}. The lines
+     * are returned in file order, the same as {@link #readLines(File)}.
+     * 
+     * @param file      the file
+     * @param chunkSize the minimum number of bytes in a chunk
+     * @param pool      the pool to decode the chunks on
+     * @return list of the lines of the file
+     * @throws FileNotFoundException    if the file isn't found
+     * @throws IOException              if the file couldn't be read
+     * @throws IllegalArgumentException if {@code chunkSize} is less than 1
+     */
+    public static List<String> readLinesParallel(File file, long chunkSize, ForkJoinPool pool) throws IOException {
+        checkChunking(chunkSize, pool);
+        if (!isByteScannable(Charset.defaultCharset()))
+            return readLines(file);
+
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            long[] bounds = chunkBounds(channel, chunkSize);
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            List<String>[] chunks = new List[bounds.length - 1];
+
+            forEachChunk(pool, chunks.length, i -> {
+                CharBuffer text = StandardCharsets.UTF_8.decode(readRange(channel, bounds[i], bounds[i + 1]));
+                chunks[i] = new ArrayList<>();
+                splitLines(text, chunks[i]);
+            });
+
+            int size = 0;
+            for (List<String> chunk : chunks) {
+                size += chunk.size();
+            }
+            List<String> lines = new ArrayList<>(size);
+            for (List<String> chunk : chunks) {
+                lines.addAll(chunk);
+            }
+            return lines;
         }
-        return tokens;
+    }
+
+    /**
+     * Reads line {@code n} of {@code file}.
+     * <p>
+     * The line is located through the {@link LineIndex} of the file, which is
+     * built on first use, kept in a sidecar file and cached in memory, so only
+     * the requested line is read. To read many lines keep the index from
+     * {@link LineIndex#of(File)} instead of calling this method repeatedly.
+     * 
+     * @param file the file
+     * @param n    the line number, starting at {@code 0}
+     * @return the line without its line separator
+     * @throws FileNotFoundException     if the file isn't found
+     * @throws IOException               if the file couldn't be read
+     * @throws IndexOutOfBoundsException if the line doesn't exist
+     */
+    public static String readLine(File file, long n) throws IOException {
+        return LineIndex.of(file).readLine(n);
+    }
+
+    /**
+     * Reads the lines of {@code file} from {@code from} (inclusive) to {@code to}
+     * (exclusive) into a list of strings.
+     * <p>
+     * The lines are located through the {@link LineIndex} of the file, so only
+     * the requested lines are read.
+     * 
+     * @param file the file
+     * @param from the first line to read
+     * @param to   the line after the last line to read
+     * @return list of the lines
+     * @throws FileNotFoundException     if the file isn't found
+     * @throws IOException               if the file couldn't be read
+     * @throws IndexOutOfBoundsException if {@code from} or {@code to} is invalid
+     * @see #readLine(File, long)
+     */
+    public static List<String> readLines(File file, long from, long to) throws IOException {
+        return LineIndex.of(file).readLines(from, to);
     }
 
     /**
@@ -90,14 +494,71 @@ public final class JFiles {
      * @throws FileNotFoundException if the file isn't found
      */
     public static List<String> readWords(File file) throws FileNotFoundException {
-        getScanner(file);
-
-        List<String> tokens = new ArrayList<>();
+        try (Scanner fileReader = newScanner(file)) {
+            List<String> tokens = new ArrayList<>();
 
-        while (fileReader.hasNext()) {
-            tokens.add(fileReader.next());
+            while (fileReader.hasNext()) {
+                tokens.add(fileReader.next());
+            }
+            return tokens;
         }
-        return tokens;
+    }
+
+    /**
+     * Returns a lazy stream of the lines of {@code file}.
+     * <p>
+     * Lines are read on demand through a fixed size buffer, so only the current
+     * line is held in memory. The stream holds the file open and must be closed,
+     * preferably with a try-with-resources statement. I/O errors while reading
+     * are thrown as {@link UncheckedIOException}.
+     * 
+     * @param file the file
+     * @return stream of the lines of the file
+     * @throws FileNotFoundException if the file isn't found
+     * @see #readLines(File)
+     */
+    public static Stream<String> lines(File file) throws FileNotFoundException {
+        return stream(file, reader -> {
+            CharSequence line = reader.nextLine();
+            return line == null ? null : line.toString();
+        });
+    }
+
+    /**
+     * Returns a lazy stream of views of the lines of {@code file}.
+     * <p>
+     * Unlike {@link #lines(File)} no String is created per line. Each element is
+     * a view into the read buffer that is only valid until the stream advances,
+     * so it must be consumed or copied with {@code toString()} inside the
+     * pipeline stage that receives it. The stream is sequential, holds the file
+     * open and must be closed.
+     * 
+     * @param file the file
+     * @return stream of reusable views of the lines of the file
+     * @throws FileNotFoundException if the file isn't found
+     */
+    public static Stream<CharSequence> lineViews(File file) throws FileNotFoundException {
+        return stream(file, TextReader::nextLine);
+    }
+
+    /**
+     * Returns a lazy stream of the words of {@code file}.
+     * <p>
+     * Words are read on demand through a fixed size buffer, so only the current
+     * word is held in memory. The stream holds the file open and must be closed,
+     * preferably with a try-with-resources statement. I/O errors while reading
+     * are thrown as {@link UncheckedIOException}.
+     * 
+     * @param file the file
+     * @return stream of the words of the file
+     * @throws FileNotFoundException if the file isn't found
+     * @see #readWords(File)
+     */
+    public static Stream<String> words(File file) throws FileNotFoundException {
+        return stream(file, reader -> {
+            CharSequence word = reader.nextWord();
+            return word == null ? null : word.toString();
+        });
     }
 
     /**
@@ -110,17 +571,68 @@ public final class JFiles {
      * @param file the file to read
      * @return the file as a String
      * @throws FileNotFoundException if the file isn't found
+     * @see FileCache#read(File)
      */
     public static String read(File file) throws FileNotFoundException {
-        getScanner(file);
-
-        StringBuilder sb = new StringBuilder();
+        try (Scanner fileReader = newScanner(file)) {
+            StringBuilder sb = new StringBuilder();
 
-        while (fileReader.hasNext()) {
-            sb.append(fileReader.next());
-            sb.append(" ");
+            while (fileReader.hasNext()) {
+                sb.append(fileReader.next());
+                sb.append(" ");
+            }
+            return sb.toString();
         }
-        return sb.toString();
+    }
+
+    /**
+     * Sorts the lines of {@code in} and writes them to {@code out}, one per line.
+     * <p>
+     * Files larger than {@code memoryBudget} are sorted externally: runs that
+     * fit in the budget are sorted in parallel, spilled to temporary files next
+     * to {@code out} and merged. {@code in} and {@code out} may be the same
+     * file. The sort is stable.
+     * 
+     * @param in           the file to sort
+     * @param out          the file to write the sorted lines to
+     * @param comparator   the order of the lines. {@code null} for natural order
+     * @param memoryBudget the approximate number of bytes of lines to hold in
+     *                     memory at once
+     * @throws FileNotFoundException    if {@code in} isn't found
+     * @throws IOException              if a file couldn't be read or written
+     * @throws IllegalArgumentException if {@code memoryBudget} is less than 1
+     */
+    public static void sortLines(File in, File out, Comparator<? super String> comparator, long memoryBudget)
+            throws IOException {
+        sortLines(in, out, comparator, memoryBudget, false);
+    }
+
+    /**
+     * Sorts the lines of {@code in} and writes them to {@code out}, one per line.
+     * <p>
+     * If {@code distinct} is {@code true} only the first of the lines that
+     * compare equal is written.
+     * 
+     * @param in           the file to sort
+     * @param out          the file to write the sorted lines to
+     * @param comparator   the order of the lines. {@code null} for natural order
+     * @param memoryBudget the approximate number of bytes of lines to hold in
+     *                     memory at once
+     * @param distinct     {@code true} removes duplicate lines
+     * @throws FileNotFoundException    if {@code in} isn't found
+     * @throws IOException              if a file couldn't be read or written
+     * @throws IllegalArgumentException if {@code memoryBudget} is less than 1
+     * @see #sortLines(File, File, Comparator, long)
+     */
+    public static void sortLines(File in, File out, Comparator<? super String> comparator, long memoryBudget,
+            boolean distinct) throws IOException {
+        Objects.requireNonNull(in);
+        Objects.requireNonNull(out);
+        if (memoryBudget < 1)
+            throw new IllegalArgumentException("Memory budget must be greater than 0");
+
+        ExternalSort.sort(in, out, comparator == null ? Comparator.naturalOrder() : comparator, memoryBudget,
+                distinct);
     }
 
     /**
@@ -136,9 +648,10 @@ public final class JFiles {
      * @throws IOException if the write operation to the file was unsuccessful
      */
     public static void write(File file, String text, boolean append) throws IOException {
-        getWriter(file, append);
-        fileWriter.print(text);
-        fileWriter.close();
+        try (PrintWriter fileWriter = newWriter(file, append)) {
+            fileWriter.print(text);
+            checkWriter(fileWriter, file);
+        }
     }
 
     /**
@@ -170,9 +683,10 @@ public final class JFiles {
      * @throws IOException if the write operation to the file was unsuccessful
      */
     public static void writeln(File file, String text, boolean append) throws IOException {
-        getWriter(file, append);
-        fileWriter.println(text);
-        fileWriter.close();
+        try (PrintWriter fileWriter = newWriter(file, append)) {
+            fileWriter.println(text);
+            checkWriter(fileWriter, file);
+        }
     }
 
     /**
@@ -191,6 +705,59 @@ public final class JFiles {
         writeln(file, text, DEFAULT_APPEND);
     }
 
+    /**
+     * Returns a long lived appender for {@code file}.
+     * <p>
+     * Unlike {@link #write(File, String, boolean)}, which opens and closes the
+     * file on every call, the appender keeps the file open and writes appended
+     * texts in batches from a background thread. It should be preferred for
+     * frequent appends, such as logging, and must be closed when done.
+     * 
+     * @param file the file to append to. created if it doesn't exist
+     * @return an appender for the file
+     * @throws IOException if the file couldn't be opened
+     * @see FileAppender
+     */
+    public static FileAppender appender(File file) throws IOException {
+        return new FileAppender(file);
+    }
+
+    /**
+     * Returns a long lived appender for {@code file}.
+     * <p>
+     * Appended texts are written in batches of up to {@code batchSize} texts,
+     * at most {@code maxLatency} after they are appended. If {@code fsync} is
+     * {@code true} each batch is forced to the storage device once.
+     * 
+     * @param file       the file to append to. created if it doesn't exist
+     * @param batchSize  the maximum number of texts written in one batch
+     * @param maxLatency the longest time an appended text waits to be written
+     * @param unit       the unit of {@code maxLatency}
+     * @param fsync      {@code true} forces every batch to the storage device
+     * @return an appender for the file
+     * @throws IOException              if the file couldn't be opened
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1 or
+     *                                  {@code maxLatency} is negative
+     * @see FileAppender
+     */
+    public static FileAppender appender(File file, int batchSize, long maxLatency, TimeUnit unit, boolean fsync)
+            throws IOException {
+        return new FileAppender(file, batchSize, maxLatency, unit, fsync);
+    }
+
+    /**
+     * Returns the shared asynchronous facade of this class.
+     * <p>
+     * The facade runs at most 64 operations at once on its own daemon threads.
+     * It is shared and must not be closed; create an {@link AsyncFiles} to use a
+     * different bound.
+     * 
+     * @return the shared {@link AsyncFiles}
+     */
+    public static AsyncFiles async() {
+        return AsyncHolder.INSTANCE;
+    }
+
     /**
      * Deletes all the content in {@code file}.
      * 
@@ -201,11 +768,361 @@ public final class JFiles {
         new PrintWriter(file).close();
     }
 
-    private static void getScanner(File f) throws FileNotFoundException {
-        fileReader = new Scanner(f);
+    private static final class AsyncHolder {
+        static final AsyncFiles INSTANCE = new AsyncFiles(64);
+    }
+
+    private static boolean isByteScannable(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII);
+    }
+
+    private static long count(File f, ByteCounter counter) throws IOException {
+        try (FileInputStream in = new FileInputStream(f); FileChannel channel = in.getChannel()) {
+            scan(channel, 0, channel.size(), counter);
+        }
+        return counter.count();
+    }
+
+    /*
+     * Feeds the bytes in [from, to) to the counter. Small ranges are read into
+     * a heap buffer; larger ones are mapped window by window.
+     */
+    static void scan(FileChannel channel, long from, long to, ByteCounter counter) throws IOException {
+        if (to - from < MAP_THRESHOLD) {
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.max(1, Math.min(READ_BUFFER_SIZE, to - from)));
+            long pos = from;
+            while (pos < to) {
+                buf.clear().limit((int) Math.min(buf.capacity(), to - pos));
+                int n = channel.read(buf, pos);
+                if (n < 0)
+                    break;
+                pos += n;
+                buf.flip();
+                counter.update(buf);
+            }
+            return;
+        }
+        for (long pos = from; pos < to; pos += MAP_WINDOW) {
+            counter.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, to - pos)));
+        }
+    }
+
+    private static long countParallel(File f, long chunkSize, ForkJoinPool pool, Supplier<ByteCounter> counters)
+            throws IOException {
+        checkChunking(chunkSize, pool);
+        if (!isByteScannable(Charset.defaultCharset()))
+            return count(f, counters.get());
+
+        try (FileInputStream in = new FileInputStream(f); FileChannel channel = in.getChannel()) {
+            long[] bounds = chunkBounds(channel, chunkSize);
+            long[] counts = new long[bounds.length - 1];
+
+            forEachChunk(pool, counts.length, i -> {
+                ByteCounter counter = counters.get();
+                scan(channel, bounds[i], bounds[i + 1], counter);
+                counts[i] = counter.count();
+            });
+
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+    private static void checkChunking(long chunkSize, ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+    }
+
+    /*
+     * Returns the start offsets of the chunks followed by the file size. Every
+     * chunk but the last ends right after a \n, so no chunk starts inside a
+     * line, a multi-byte character or a \r\n pair.
+     */
+    private static long[] chunkBounds(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+
+        ByteBuffer buf = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long start = 0;
+        while (size - start > chunkSize) {
+            long end = nextLineStart(channel, start + chunkSize, size, buf);
+            if (end >= size)
+                break;
+            bounds.add(end);
+            start = end;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer buf) throws IOException {
+        long pos = from;
+        while (pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n < 0)
+                break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n')
+                    return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static ByteBuffer readRange(FileChannel channel, long from, long to) throws IOException {
+        if (to - from >= MAP_THRESHOLD)
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+
+        ByteBuffer buf = ByteBuffer.allocate((int) (to - from));
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, from + buf.position()) < 0)
+                break;
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /*
+     * Splits text into lines the way Scanner.nextLine() does.
+     */
+    static void splitLines(CharSequence text, List<String> lines) {
+        int start = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\r' || c == '\n' || ByteCounter.isLineSeparator(c)) {
+                lines.add(text.subSequence(start, i).toString());
+                if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n')
+                    i++;
+                start = i + 1;
+            }
+        }
+        if (start < length)
+            lines.add(text.subSequence(start, length).toString());
+    }
+
+    private interface ChunkBody {
+        void process(int chunk) throws IOException;
+    }
+
+    private static void forEachChunk(ForkJoinPool pool, int chunks, ChunkBody body) throws IOException {
+        try {
+            pool.invoke(new ChunkTask(body, 0, chunks));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
-    private static void getWriter(File f, boolean append) throws IOException {
-        fileWriter = new PrintWriter(new FileWriter(f, append));
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ChunkBody body;
+        private final int from;
+        private final int to;
+
+        ChunkTask(ChunkBody body, int from, int to) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(body, from, mid), new ChunkTask(body, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                try {
+                    body.process(i);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private interface TextReadFunction<T> {
+        T read(TextReader reader) throws IOException;
+    }
+
+    private static <T> Stream<T> stream(File f, TextReadFunction<T> next) throws FileNotFoundException {
+        TextReader reader = newTextReader(f);
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                T item;
+                try {
+                    item = next.read(reader);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (item == null)
+                    return false;
+                action.accept(item);
+                return true;
+            }
+
+            @Override
+            public Spliterator<T> trySplit() {
+                // items may be views into the reader's buffer, so they can't be batched
+                return null;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static TextReader newTextReader(File f) throws FileNotFoundException {
+        return new TextReader(new InputStreamReader(new FileInputStream(f), Charset.defaultCharset()));
+    }
+
+    private interface PathFunction<R> {
+        R apply(Path file) throws IOException;
+    }
+
+    private static long sumFiles(Path dir, String glob, int concurrency, PathFunction<Long> count,
+            BiConsumer<? super Path, ? super Long> perFile) throws IOException {
+        long[] total = new long[1];
+        forEachFile(dir, glob, concurrency, count, (f, n) -> {
+            total[0] += n;
+            if (perFile != null)
+                perFile.accept(f, n);
+        });
+        return total[0];
+    }
+
+    /*
+     * Walks the tree and runs task on the matching regular files. At most
+     * 2 * concurrency results are pending, and they are handed to sink on the
+     * calling thread in completion order.
+     */
+    private static <R> void forEachFile(Path dir, String glob, int concurrency, PathFunction<R> task,
+            BiConsumer<Path, R> sink) throws IOException {
+        Objects.requireNonNull(dir);
+        Objects.requireNonNull(glob);
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be greater than 0");
+
+        PathMatcher matcher = dir.getFileSystem().getPathMatcher("glob:" + glob);
+        boolean byName = glob.indexOf('/') < 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "JFiles-tree");
+            t.setDaemon(true);
+            return t;
+        });
+        ExecutorCompletionService<Object[]> results = new ExecutorCompletionService<>(pool);
+        int pending = 0;
+
+        try (Stream<Path> paths = Files.find(dir, Integer.MAX_VALUE, (p, attrs) -> attrs.isRegularFile()
+                && matcher.matches(byName ? p.getFileName() : dir.relativize(p)))) {
+            Iterator<Path> it = paths.iterator();
+            while (it.hasNext()) {
+                Path p = it.next();
+                results.submit(() -> new Object[] { p, task.apply(p) });
+                if (++pending >= 2 * concurrency) {
+                    deliver(results, sink);
+                    pending--;
+                }
+            }
+            for (; pending > 0; pending--) {
+                deliver(results, sink);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> void deliver(ExecutorCompletionService<Object[]> results, BiConsumer<Path, R> sink)
+            throws IOException {
+        Object[] result;
+        try {
+            result = results.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while walking the tree");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        }
+        sink.accept((Path) result[0], (R) result[1]);
+    }
+
+    private static List<LineMatch> grep(Path file, String literal) throws IOException {
+        List<LineMatch> matches = new ArrayList<>();
+        try (TextReader reader = newTextReader(file.toFile())) {
+            CharSequence line;
+            for (long n = 0; (line = reader.nextLine()) != null; n++) {
+                if (contains(line, literal))
+                    matches.add(new LineMatch(file, n, line.toString()));
+            }
+        }
+        return matches;
+    }
+
+    private static boolean contains(CharSequence text, String literal) {
+        int n = literal.length();
+        if (n == 0)
+            return true;
+
+        char first = literal.charAt(0);
+        for (int i = 0, last = text.length() - n; i <= last; i++) {
+            if (text.charAt(i) != first)
+                continue;
+            int j = 1;
+            while (j < n && text.charAt(i + j) == literal.charAt(j)) {
+                j++;
+            }
+            if (j == n)
+                return true;
+        }
+        return false;
+    }
+
+    private static Scanner newScanner(File f) throws FileNotFoundException {
+        return new Scanner(f);
+    }
+
+    private static PrintWriter newWriter(File f, boolean append) throws IOException {
+        return new PrintWriter(new BufferedWriter(new FileWriter(f, append)));
+    }
+
+    /*
+     * PrintWriter swallows IOExceptions, so they are surfaced here before the
+     * writer is closed. checkError() also flushes the buffered text.
+     */
+    private static void checkWriter(PrintWriter writer, File f) throws IOException {
+        if (writer.checkError())
+            throw new IOException("Failed to write to " + f);
     }
 }
@@ -1,8 +1,23 @@
 package jutil;
 
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Utility class for iterable types
@@ -31,8 +46,9 @@ public final class JIterable {
         if (iterable == null)
             return 0;
 
-        if (iterable instanceof Collection<?>)
-            return ((Collection<?>) iterable).size();
+        int size = knownSize(iterable);
+        if (size >= 0)
+            return size;
 
         return JIterator.size(emptyIteratorIfNull(iterable));
     }
@@ -45,9 +61,89 @@ public final class JIterable {
      * @return a list of items in the Iterable
      */
     public static <T> List<T> toList(Iterable<? extends T> iterable) {
+        if (iterable instanceof Collection<?>)
+            return new ArrayList<>((Collection<? extends T>) iterable);
+
+        int size = knownSize(iterable);
+        if (size > 0)
+            return JIterator.toList(iterable.iterator(), size);
         return JIterator.toList(emptyIteratorIfNull(iterable));
     }
 
+    /**
+     * Returns an array of the items in the Iterable. Null safe.
+     * <p>
+     * When the size of the Iterable is known, because it is a Collection or a
+     * {@link MemoizedIterable}, the items are copied directly into an array of
+     * that size. Otherwise see
+     * {@link JIterator#toArray(Iterator)}.
+     * 
+     * @param iterable the iterable. can be null.
+     * @return array of the items in the Iterable
+     */
+    public static Object[] toArray(Iterable<?> iterable) {
+        if (iterable instanceof Collection<?>)
+            return ((Collection<?>) iterable).toArray();
+        return toArray(iterable, Object.class);
+    }
+
+    /**
+     * Returns an array of the items in the Iterable. Null safe.
+     * 
+     * @param <T>        the item type
+     * @param iterable   the iterable. can be null.
+     * @param arrayClass the class of the array to create. can't be null.
+     * @return array of the items in the Iterable
+     * @throws NullPointerException if {@code arrayClass} is null
+     * @throws ArrayStoreException  if {@code arrayClass} is invalid
+     * @see #toArray(Iterable)
+     */
+    public static <T> T[] toArray(Iterable<? extends T> iterable, Class<T> arrayClass) {
+        Objects.requireNonNull(arrayClass);
+
+        if (iterable instanceof Collection<?>) {
+            Collection<? extends T> collection = (Collection<? extends T>) iterable;
+            @SuppressWarnings("unchecked")
+            T[] array = (T[]) Array.newInstance(arrayClass, collection.size());
+            return collection.toArray(array);
+        }
+
+        int size = knownSize(iterable);
+        if (size >= 0) {
+            @SuppressWarnings("unchecked")
+            T[] array = (T[]) Array.newInstance(arrayClass, size);
+            Iterator<? extends T> iterator = iterable.iterator();
+            int i = 0;
+            while (i < size && iterator.hasNext()) {
+                array[i++] = iterator.next();
+            }
+            if (i == size && !iterator.hasNext())
+                return array;
+
+            // the reported size was wrong, keep what was read and collect the rest
+            ChunkedBuffer<T> buffer = new ChunkedBuffer<>();
+            buffer.addAll(Arrays.asList(array).subList(0, i).iterator());
+            buffer.addAll(iterator);
+            return buffer.toArray(arrayClass);
+        }
+        return JIterator.toArray(emptyIteratorIfNull(iterable), arrayClass);
+    }
+
+    /*
+     * Returns the exact size of the iterable if it is cheap to know, and -1
+     * otherwise.
+     */
+    private static int knownSize(Iterable<?> iterable) {
+        if (iterable == null)
+            return 0;
+        if (iterable instanceof Collection<?>)
+            return ((Collection<?>) iterable).size();
+        if (iterable instanceof MemoizedIterable<?>)
+            return ((MemoizedIterable<?>) iterable).size();
+        // anything else may only be iterable once, so don't ask for a spliterator
+        return -1;
+    }
+
     /**
      * Returns the item at {@code index} in the Iterable.
      * 
@@ -61,6 +157,9 @@ public final class JIterable {
         if (iterable instanceof List<?>) {
             return ((List<T>) iterable).get(index);
         }
+        if (iterable instanceof MemoizedIterable<?>) {
+            return ((MemoizedIterable<T>) iterable).get(index);
+        }
         return JIterator.get(emptyIteratorIfNull(iterable), index);
     }
 
@@ -115,6 +214,232 @@ public final class JIterable {
         return iterable == null ? JIterator.<E>emptyIterator() : iterable.iterator();
     }
 
+    /**
+     * Returns a caching view of the Iterable. Null safe.
+     * <p>
+     * The returned Iterable iterates {@code iterable} at most once, lazily,
+     * and answers {@link #get(Iterable, int)} and {@link #first(Iterable)} in
+     * amortized constant time. This is useful for single use Iterables such as
+     * those from {@link JIterator#asIterable(Iterator)}. A MemoizedIterable is
+     * returned as is.
+     * 
+     * @param <T>      the item type
+     * @param iterable the iterable. can be null
+     * @return caching view of {@code iterable}
+     * @see MemoizedIterable
+     */
+    public static <T> MemoizedIterable<T> memoize(Iterable<T> iterable) {
+        if (iterable instanceof MemoizedIterable<?>)
+            return (MemoizedIterable<T>) iterable;
+        return JIterator.memoize(emptyIteratorIfNull(iterable));
+    }
+
+    /**
+     * Returns a Spliterator over the items of the Iterable that splits well
+     * for parallel processing. Null safe.
+     * <p>
+     * Collections whose own Spliterator splits into exactly sized halves use
+     * it, {@link RandomAccess} Lists are split evenly by index, and other
+     * Collections use their own Spliterator. Any other Iterable is split into
+     * batches that start small and double in size, see
+     * {@link JIterator#spliterator(Iterator)}.
+     * 
+     * @param <T>      the item type
+     * @param iterable the iterable. can be null
+     * @return Spliterator over the items of {@code iterable}
+     */
+    public static <T> Spliterator<T> spliterator(Iterable<T> iterable) {
+        if (iterable == null)
+            return Spliterators.emptySpliterator();
+
+        if (iterable instanceof Collection<?>) {
+            Spliterator<T> spliterator = iterable.spliterator();
+            if (spliterator.hasCharacteristics(Spliterator.SUBSIZED))
+                return spliterator;
+            if (iterable instanceof List<?> && iterable instanceof RandomAccess)
+                return new RandomAccessSpliterator<>((List<T>) iterable, 0, ((List<T>) iterable).size());
+            return spliterator;
+        }
+
+        // the iterable may only be iterable once, so batch the same spliterator
+        Spliterator<T> spliterator = iterable.spliterator();
+        if (spliterator.hasCharacteristics(Spliterator.SIZED))
+            return spliterator;
+        return JIterator.spliterator(Spliterators.iterator(spliterator));
+    }
+
+    /**
+     * Returns a parallel Stream of the items of the Iterable. Null safe.
+     * 
+     * @param <T>      the item type
+     * @param iterable the iterable. can be null
+     * @return parallel Stream of the items of {@code iterable}
+     * @see #spliterator(Iterable)
+     */
+    public static <T> Stream<T> parallelStream(Iterable<T> iterable) {
+        return StreamSupport.stream(spliterator(iterable), true);
+    }
+
+    /**
+     * Performs {@code action} on each item of the Iterable in parallel on the
+     * common ForkJoinPool. Null safe.
+     * 
+     * @param <T>      the item type
+     * @param iterable the iterable. can be null
+     * @param action   the action to perform. can't be null
+     * @throws NullPointerException if {@code action} is null
+     * @see #parallelForEach(Iterable, Consumer, ForkJoinPool)
+     */
+    public static <T> void parallelForEach(Iterable<T> iterable, Consumer<? super T> action) {
+        parallelForEach(iterable, action, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Performs {@code action} on each item of the Iterable in parallel on
+     * {@code pool}. Null safe.
+     * <p>
+     * The items are split as by {@link #spliterator(Iterable)} into about four
+     * tasks per thread of {@code pool}. The order in which the items are
+     * processed isn't defined. The method returns once every item is
+     * processed, and an exception thrown by {@code action} is rethrown.
+     * 
+     * @param <T>      the item type
+     * @param iterable the iterable. can be null
+     * @param action   the action to perform. can't be null
+     * @param pool     the pool to run on. can't be null
+     * @throws NullPointerException if {@code action} or {@code pool} is null
+     */
+    public static <T> void parallelForEach(Iterable<T> iterable, Consumer<? super T> action, ForkJoinPool pool) {
+        Objects.requireNonNull(action);
+        Objects.requireNonNull(pool);
+
+        Spliterator<T> spliterator = spliterator(iterable);
+        long size = spliterator.estimateSize();
+        long threshold = size == Long.MAX_VALUE ? BatchSpliterator.MIN_BATCH
+                : Math.max(1, size / (4L * pool.getParallelism()));
+        pool.invoke(new ForEachTask<>(spliterator, action, threshold));
+    }
+
+    /**
+     * Returns a source that splits the items of the Iterable between many
+     * consumer threads. Null safe.
+     * <p>
+     * For a {@link RandomAccess} List batches are claimed by index without
+     * locking, and the List must not change size while it is drained.
+     * Otherwise see {@link JIterator#shared(Iterator, int)}.
+     * 
+     * @param <T>       the item type
+     * @param iterable  the iterable. can be null
+     * @param batchSize the maximum number of items a consumer claims at once
+     * @return shared source of the items
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1
+     * @see SharedIterator
+     */
+    public static <T> SharedIterator<T> shared(Iterable<T> iterable, int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        if (iterable instanceof List<?> && iterable instanceof RandomAccess)
+            return new SharedIterator<>((List<T>) iterable, batchSize);
+        return JIterator.shared(emptyIteratorIfNull(iterable), batchSize);
+    }
+
+    /**
+     * Returns a lazy Iterable of the items of {@code iterable} transformed by
+     * {@code mapper}.
+     * <p>
+     * Each iteration of the returned Iterable iterates {@code iterable} once
+     * through a fused pipeline, see {@link JIterator#map(Iterator, Function)}.
+     * 
+     * @param <T>      the item type
+     * @param <R>      the result type
+     * @param iterable the iterable. can be null
+     * @param mapper   the function to apply to each item. can't be null
+     * @return Iterable of the mapped items
+     * @throws NullPointerException if {@code mapper} is null
+     */
+    public static <T, R> Iterable<R> map(Iterable<T> iterable, Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return () -> JIterator.map(emptyIteratorIfNull(iterable), mapper);
+    }
+
+    /**
+     * Returns a lazy Iterable of the items of {@code iterable} that match
+     * {@code predicate}.
+     * 
+     * @param <T>       the item type
+     * @param iterable  the iterable. can be null
+     * @param predicate the condition the returned items match. can't be null
+     * @return Iterable of the matching items
+     * @throws NullPointerException if {@code predicate} is null
+     */
+    public static <T> Iterable<T> filter(Iterable<T> iterable, Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        return () -> JIterator.filter(emptyIteratorIfNull(iterable), predicate);
+    }
+
+    /**
+     * Returns a lazy Iterable of the items of the Iterables {@code mapper}
+     * returns for the items of {@code iterable}, one after the other.
+     * 
+     * @param <T>      the item type
+     * @param <R>      the result type
+     * @param iterable the iterable. can be null
+     * @param mapper   the function returning the Iterable of each item. can't
+     *                 be null
+     * @return Iterable of the items of the mapped Iterables
+     * @throws NullPointerException if {@code mapper} is null
+     */
+    public static <T, R> Iterable<R> flatMap(Iterable<T> iterable,
+            Function<? super T, ? extends Iterable<? extends R>> mapper) {
+        Objects.requireNonNull(mapper);
+        return () -> JIterator.flatMap(emptyIteratorIfNull(iterable), t -> emptyIteratorIfNull(mapper.apply(t)));
+    }
+
+    /**
+     * Returns a lazy Iterable of at most the first {@code n} items of
+     * {@code iterable}.
+     * 
+     * @param <T>      the item type
+     * @param iterable the iterable. can be null
+     * @param n        the maximum number of items
+     * @return Iterable of the first {@code n} items
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public static <T> Iterable<T> take(Iterable<T> iterable, long n) {
+        if (n < 0)
+            throw new IllegalArgumentException("Count can't be negative");
+        return () -> JIterator.take(emptyIteratorIfNull(iterable), n);
+    }
+
+    /**
+     * Returns a lazy Iterable of the items of {@code iterable} after the first
+     * {@code n}.
+     * 
+     * @param <T>      the item type
+     * @param iterable the iterable. can be null
+     * @param n        the number of items to skip
+     * @return Iterable of the items after the first {@code n}
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public static <T> Iterable<T> skip(Iterable<T> iterable, long n) {
+        if (n < 0)
+            throw new IllegalArgumentException("Count can't be negative");
+        return () -> JIterator.skip(emptyIteratorIfNull(iterable), n);
+    }
+
+    /**
+     * Returns a lazy Iterable of the items of {@code iterable} without
+     * duplicates.
+     * 
+     * @param <T>      the item type
+     * @param iterable the iterable. can be null
+     * @return Iterable of the distinct items
+     * @see JIterator#distinct(Iterator)
+     */
+    public static <T> Iterable<T> distinct(Iterable<T> iterable) {
+        return () -> JIterator.distinct(emptyIteratorIfNull(iterable));
+    }
+
     /**
      * Returns a string representation of the iterable.
      * <p>
@@ -128,6 +453,195 @@ public final class JIterable {
      * @return string representation of {@code iterable}
      */
     public static <T> String toString(Iterable<T> iterable) {
+        if (iterable instanceof Collection<?>)
+            return toString(iterable, Integer.MAX_VALUE);
         return JIterator.toString(emptyIteratorIfNull(iterable));
     }
+
+    /**
+     * Returns a string representation of at most the first
+     * {@code maxElements} items of the iterable.
+     * <p>
+     * For a Collection the StringBuilder is sized up front from the number of
+     * items to include.
+     * 
+     * @param <T>         the item type
+     * @param iterable    the iterable. can be null
+     * @param maxElements the maximum number of items to include
+     * @return bounded string representation of {@code iterable}
+     * @throws IllegalArgumentException if {@code maxElements} is negative
+     * @see JIterator#toString(Iterator, int)
+     */
+    public static <T> String toString(Iterable<T> iterable, int maxElements) {
+        StringBuilder sb = new StringBuilder(estimateLength(iterable, maxElements));
+        return JIterator.appendTo(sb, emptyIteratorIfNull(iterable), maxElements, Integer.MAX_VALUE).toString();
+    }
+
+    /**
+     * Appends a string representation of the iterable to {@code sb}.
+     * <p>
+     * For a Collection {@code sb} is grown once up front from the number of
+     * items to include.
+     * 
+     * @param iterable    the iterable. can be null
+     * @param sb          the StringBuilder to append to. can't be null
+     * @param maxElements the maximum number of items to include
+     * @param maxChars    the maximum number of characters of items and
+     *                    separators to include
+     * @return {@code sb}
+     * @throws NullPointerException     if {@code sb} is null
+     * @throws IllegalArgumentException if {@code maxElements} or
+     *                                  {@code maxChars} is negative
+     * @see JIterator#appendTo(Appendable, Iterator, int, int)
+     */
+    public static StringBuilder appendTo(StringBuilder sb, Iterable<?> iterable, int maxElements, int maxChars) {
+        Objects.requireNonNull(sb);
+        int estimate = Math.min(estimateLength(iterable, maxElements), maxChars + 8);
+        sb.ensureCapacity(sb.length() + estimate);
+        return JIterator.appendTo(sb, emptyIteratorIfNull(iterable), maxElements, maxChars);
+    }
+
+    /**
+     * Appends a string representation of the iterable to {@code out} without
+     * building it in memory first.
+     * 
+     * @param <A>         the Appendable type
+     * @param out         the Appendable to append to, such as a Writer. can't
+     *                    be null
+     * @param iterable    the iterable. can be null
+     * @param maxElements the maximum number of items to include
+     * @param maxChars    the maximum number of characters of items and
+     *                    separators to include
+     * @return {@code out}
+     * @throws IOException              if {@code out} throws IOException
+     * @throws NullPointerException     if {@code out} is null
+     * @throws IllegalArgumentException if {@code maxElements} or
+     *                                  {@code maxChars} is negative
+     * @see JIterator#appendTo(Appendable, Iterator, int, int)
+     */
+    public static <A extends Appendable> A appendTo(A out, Iterable<?> iterable, int maxElements, int maxChars)
+            throws IOException {
+        return JIterator.appendTo(out, emptyIteratorIfNull(iterable), maxElements, maxChars);
+    }
+
+    /*
+     * Estimates the length of the string representation of a Collection,
+     * assuming short items.
+     */
+    private static int estimateLength(Iterable<?> iterable, int maxElements) {
+        if (!(iterable instanceof Collection<?>))
+            return 16;
+        long items = Math.min(((Collection<?>) iterable).size(), (long) Math.max(0, maxElements));
+        return (int) Math.min(1 << 20, 2 + items * 8);
+    }
+
+    /**
+     * Spliterator over an index range of a RandomAccess List that splits in
+     * halves.
+     */
+    private static final class RandomAccessSpliterator<T> implements Spliterator<T> {
+        private final List<T> list;
+        private int index;
+        private final int end;
+
+        RandomAccessSpliterator(List<T> list, int index, int end) {
+            this.list = list;
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + end) >>> 1;
+            if (mid <= index)
+                return null;
+            Spliterator<T> prefix = new RandomAccessSpliterator<>(list, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (index >= end)
+                return false;
+            action.accept(list.get(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            for (int i = index; i < end; i++) {
+                action.accept(list.get(i));
+            }
+            index = end;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+
+    /**
+     * Splits a Spliterator down to the threshold and processes the parts in
+     * parallel.
+     * <p>
+     * Like the JDK's own forEach task it alternates between forking the prefix
+     * and the rest, so a source of unknown size is only split as fast as the
+     * pool takes up the parts, and a part can be collected as soon as it
+     * completes.
+     */
+    private static final class ForEachTask<T> extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private transient Spliterator<T> spliterator;
+        private final transient Consumer<? super T> action;
+        private final long threshold;
+
+        ForEachTask(Spliterator<T> spliterator, Consumer<? super T> action, long threshold) {
+            this.spliterator = spliterator;
+            this.action = action;
+            this.threshold = threshold;
+        }
+
+        private ForEachTask(ForEachTask<T> parent, Spliterator<T> spliterator) {
+            super(parent);
+            this.spliterator = spliterator;
+            this.action = parent.action;
+            this.threshold = parent.threshold;
+        }
+
+        @Override
+        public void compute() {
+            Spliterator<T> rest = spliterator;
+            ForEachTask<T> task = this;
+            boolean forkRest = false;
+            Spliterator<T> prefix;
+            while (rest.estimateSize() > threshold && (prefix = rest.trySplit()) != null) {
+                ForEachTask<T> prefixTask = new ForEachTask<>(task, prefix);
+                task.addToPendingCount(1);
+                ForEachTask<T> toFork;
+                if (forkRest) {
+                    forkRest = false;
+                    rest = prefix;
+                    toFork = task;
+                    task = prefixTask;
+                } else {
+                    forkRest = true;
+                    toFork = prefixTask;
+                }
+                toFork.fork();
+            }
+            rest.forEachRemaining(action);
+            task.spliterator = null;
+            task.propagateCompletion();
+        }
+    }
 }
@@ -1,15 +1,29 @@
 package jutil;
 
-import java.lang.reflect.Array;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Utility class for iterators
  */
 public final class JIterator {
+    private static final String TRUNCATED = "...";
+
     private JIterator() {
     }
 
@@ -92,8 +106,9 @@ public final class JIterator {
     /**
      * Returns an array of the items in the iterator.
      * <p>
-     * As the iterator is traversed an ArrayList of the values is created
-     * and then it is converted to an array.
+     * As the iterator is traversed the values are collected into segments
+     * that double in size, and then they are copied once into an array of
+     * the exact size.
      * 
      * @param iterator the iterator to convert. can't be null.
      * @return array of the items in the iterator
@@ -101,15 +116,17 @@ public final class JIterator {
      */
     public static Object[] toArray(Iterator<?> iterator) {
         Objects.requireNonNull(iterator);
-        List<?> list = toList(iterator);
-        return list.toArray();
+        ChunkedBuffer<Object> buffer = new ChunkedBuffer<>();
+        buffer.addAll(iterator);
+        return buffer.toArray(Object.class);
     }
 
     /**
      * Returns an array of the items in the iterator.
      * <p>
-     * As the iterator is traversed an ArrayList of the values is created
-     * and then it is converted to an array.
+     * As the iterator is traversed the values are collected into segments
+     * that double in size, and then they are copied once into an array of
+     * {@code arrayClass} of the exact size.
      * 
      * @param <T>        the item type
      * @param iterator   the iterator to convert. can't be null.
@@ -122,10 +139,9 @@ public final class JIterator {
         Objects.requireNonNull(iterator);
         Objects.requireNonNull(arrayClass);
 
-        List<T> list = toList(iterator);
-        @SuppressWarnings("unchecked")
-        T[] array = (T[]) (Array.newInstance(arrayClass, list.size()));
-        return list.toArray(array);
+        ChunkedBuffer<T> buffer = new ChunkedBuffer<>();
+        buffer.addAll(iterator);
+        return buffer.toArray(arrayClass);
     }
 
     /**
@@ -195,6 +211,411 @@ public final class JIterator {
         return () -> iterator;
     }
 
+    /**
+     * Returns a lazy iterator over the items of sorted iterators in sorted
+     * order.
+     * <p>
+     * Each iterator must be sorted by {@code comparator}. The iterators are
+     * merged with a binary heap of their current items, so each item costs
+     * {@code O(log k)} comparisons for {@code k} iterators and only the current
+     * items are held in memory. Equal items are returned in the order of the
+     * iterators they come from.
+     * 
+     * @param <T>        the item type
+     * @param comparator the order of the iterators. can't be null
+     * @param iterators  the sorted iterators. can't be null
+     * @return sorted iterator of the items of all the iterators
+     * @throws NullPointerException if {@code comparator} or one of the
+     *                              iterators is null
+     */
+    @SafeVarargs
+    public static <T> Iterator<T> mergeSorted(Comparator<? super T> comparator, Iterator<? extends T>... iterators) {
+        List<Iterator<? extends T>> list = new ArrayList<>(iterators.length);
+        for (Iterator<? extends T> iterator : iterators) {
+            list.add(iterator);
+        }
+        return mergeSorted(comparator, list);
+    }
+
+    /**
+     * Returns a lazy iterator over the items of sorted iterators in sorted
+     * order.
+     * 
+     * @param <T>        the item type
+     * @param comparator the order of the iterators. can't be null
+     * @param iterators  the sorted iterators. can't be null
+     * @return sorted iterator of the items of all the iterators
+     * @throws NullPointerException if {@code comparator} or one of the
+     *                              iterators is null
+     * @see #mergeSorted(Comparator, Iterator...)
+     */
+    public static <T> Iterator<T> mergeSorted(Comparator<? super T> comparator,
+            List<? extends Iterator<? extends T>> iterators) {
+        Objects.requireNonNull(comparator);
+        for (Iterator<? extends T> iterator : iterators) {
+            Objects.requireNonNull(iterator);
+        }
+        return new SortedIterators.Merge<>(comparator, iterators);
+    }
+
+    /**
+     * Returns a lazy iterator over the distinct items of sorted iterators in
+     * sorted order.
+     * <p>
+     * Items are equal if {@code comparator} returns {@code 0} for them, and the
+     * first of equal items is returned.
+     * 
+     * @param <T>        the item type
+     * @param comparator the order of the iterators. can't be null
+     * @param iterators  the sorted iterators. can't be null
+     * @return sorted iterator of the union of the iterators
+     * @throws NullPointerException if {@code comparator} or one of the
+     *                              iterators is null
+     * @see #mergeSorted(Comparator, Iterator...)
+     */
+    @SafeVarargs
+    public static <T> Iterator<T> union(Comparator<? super T> comparator, Iterator<? extends T>... iterators) {
+        List<Iterator<? extends T>> list = new ArrayList<>(iterators.length);
+        for (Iterator<? extends T> iterator : iterators) {
+            list.add(iterator);
+        }
+        return new SortedIterators.Distinct<>(comparator, mergeSorted(comparator, list));
+    }
+
+    /**
+     * Returns a lazy iterator over the distinct items that all the sorted
+     * iterators contain, in sorted order.
+     * <p>
+     * Each iterator must be sorted by {@code comparator}. Items are equal if
+     * {@code comparator} returns {@code 0} for them, and the item of the first
+     * iterator is returned. Iteration stops as soon as one of the iterators is
+     * exhausted.
+     * 
+     * @param <T>        the item type
+     * @param comparator the order of the iterators. can't be null
+     * @param iterators  the sorted iterators. can't be null
+     * @return sorted iterator of the intersection of the iterators
+     * @throws NullPointerException if {@code comparator} or one of the
+     *                              iterators is null
+     */
+    @SafeVarargs
+    public static <T> Iterator<T> intersection(Comparator<? super T> comparator, Iterator<? extends T>... iterators) {
+        Objects.requireNonNull(comparator);
+        if (iterators.length == 0)
+            return emptyIterator();
+
+        Iterator<T> result = new SortedIterators.Distinct<>(comparator, Objects.requireNonNull(iterators[0]));
+        for (int i = 1; i < iterators.length; i++) {
+            result = new SortedIterators.Intersect<>(comparator, result, Objects.requireNonNull(iterators[i]), true);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a lazy iterator over the distinct items of the sorted iterator
+     * {@code first} that the sorted iterator {@code second} doesn't contain,
+     * in sorted order.
+     * 
+     * @param <T>        the item type
+     * @param comparator the order of the iterators. can't be null
+     * @param first      the sorted iterator to return the items of. can't be
+     *                   null
+     * @param second     the sorted iterator of the items to leave out. can't
+     *                   be null
+     * @return sorted iterator of the difference of the iterators
+     * @throws NullPointerException if an argument is null
+     */
+    public static <T> Iterator<T> difference(Comparator<? super T> comparator, Iterator<? extends T> first,
+            Iterator<? extends T> second) {
+        Objects.requireNonNull(comparator);
+        Objects.requireNonNull(first);
+        Objects.requireNonNull(second);
+        return new SortedIterators.Intersect<>(comparator, first, second, false);
+    }
+
+    /**
+     * Returns a re-iterable, random access view of the iterator.
+     * <p>
+     * Items are read from {@code iterator} only as they are needed and cached,
+     * so {@code iterator} must not be used afterwards.
+     * 
+     * @param <T>      the item type
+     * @param iterator the iterator to cache. can't be null
+     * @return caching view of {@code iterator}
+     * @throws NullPointerException if {@code iterator} is null
+     * @see MemoizedIterable
+     */
+    public static <T> MemoizedIterable<T> memoize(Iterator<? extends T> iterator) {
+        Objects.requireNonNull(iterator);
+        return new MemoizedIterable<>(iterator);
+    }
+
+    /**
+     * Returns a Spliterator over the remaining items of the iterator that
+     * splits well for parallel processing.
+     * <p>
+     * Each split copies the next batch of items into an array, which splits
+     * evenly further. The first batch is small and each batch is twice as
+     * large as the previous one, so both short sources with expensive items
+     * and long sources with cheap items are spread over the available threads.
+     * {@code iterator} must not be used afterwards.
+     * 
+     * @param <T>      the item type
+     * @param iterator the iterator. can't be null
+     * @return Spliterator over the items of {@code iterator}
+     * @throws NullPointerException if {@code iterator} is null
+     */
+    public static <T> Spliterator<T> spliterator(Iterator<? extends T> iterator) {
+        Objects.requireNonNull(iterator);
+        return new BatchSpliterator<>(iterator, Spliterator.ORDERED);
+    }
+
+    /**
+     * Returns a parallel Stream of the remaining items of the iterator.
+     * 
+     * @param <T>      the item type
+     * @param iterator the iterator. can't be null
+     * @return parallel Stream of the items of {@code iterator}
+     * @throws NullPointerException if {@code iterator} is null
+     * @see #spliterator(Iterator)
+     */
+    public static <T> Stream<T> parallelStream(Iterator<? extends T> iterator) {
+        return StreamSupport.stream(spliterator(iterator), true);
+    }
+
+    /**
+     * Returns a lazy iterator of the items of {@code iterator} transformed by
+     * {@code mapper}.
+     * <p>
+     * The map, filter, skip and take methods of this class fuse into a single
+     * iterator when chained, so a pipeline makes one pass over
+     * {@code iterator} without allocating per item. {@code iterator} must not
+     * be used after it is passed to one of them.
+     * 
+     * @param <T>      the item type
+     * @param <R>      the result type
+     * @param iterator the iterator. can't be null
+     * @param mapper   the function to apply to each item. can't be null
+     * @return iterator of the mapped items
+     * @throws NullPointerException if {@code iterator} or {@code mapper} is null
+     */
+    public static <T, R> Iterator<R> map(Iterator<T> iterator, Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(iterator);
+        Objects.requireNonNull(mapper);
+        return FusedIterator.map(iterator, mapper);
+    }
+
+    /**
+     * Returns a lazy iterator of the items of {@code iterator} that match
+     * {@code predicate}.
+     * 
+     * @param <T>       the item type
+     * @param iterator  the iterator. can't be null
+     * @param predicate the condition the returned items match. can't be null
+     * @return iterator of the matching items
+     * @throws NullPointerException if {@code iterator} or {@code predicate} is
+     *                              null
+     * @see #map(Iterator, Function)
+     */
+    public static <T> Iterator<T> filter(Iterator<T> iterator, Predicate<? super T> predicate) {
+        Objects.requireNonNull(iterator);
+        Objects.requireNonNull(predicate);
+        return FusedIterator.filter(iterator, predicate);
+    }
+
+    /**
+     * Returns a lazy iterator of the items of the iterators {@code mapper}
+     * returns for the items of {@code iterator}, one after the other.
+     * 
+     * @param <T>      the item type
+     * @param <R>      the result type
+     * @param iterator the iterator. can't be null
+     * @param mapper   the function returning the iterator of each item. can't
+     *                 be null
+     * @return iterator of the items of the mapped iterators
+     * @throws NullPointerException if {@code iterator} or {@code mapper} is null
+     */
+    public static <T, R> Iterator<R> flatMap(Iterator<T> iterator,
+            Function<? super T, ? extends Iterator<? extends R>> mapper) {
+        Objects.requireNonNull(iterator);
+        Objects.requireNonNull(mapper);
+
+        return new Iterator<R>() {
+            private Iterator<? extends R> current = emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (!iterator.hasNext())
+                        return false;
+                    Iterator<? extends R> next = mapper.apply(iterator.next());
+                    current = next == null ? emptyIterator() : next;
+                }
+                return true;
+            }
+
+            @Override
+            public R next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Returns a lazy iterator of at most the first {@code n} items of
+     * {@code iterator}.
+     * <p>
+     * Once {@code n} items are returned {@code iterator} isn't advanced any
+     * further.
+     * 
+     * @param <T>      the item type
+     * @param iterator the iterator. can't be null
+     * @param n        the maximum number of items
+     * @return iterator of the first {@code n} items
+     * @throws NullPointerException     if {@code iterator} is null
+     * @throws IllegalArgumentException if {@code n} is negative
+     * @see #map(Iterator, Function)
+     */
+    public static <T> Iterator<T> take(Iterator<T> iterator, long n) {
+        Objects.requireNonNull(iterator);
+        if (n < 0)
+            throw new IllegalArgumentException("Count can't be negative");
+        return FusedIterator.take(iterator, n);
+    }
+
+    /**
+     * Returns a lazy iterator of the items of {@code iterator} after the first
+     * {@code n}.
+     * 
+     * @param <T>      the item type
+     * @param iterator the iterator. can't be null
+     * @param n        the number of items to skip
+     * @return iterator of the items after the first {@code n}
+     * @throws NullPointerException     if {@code iterator} is null
+     * @throws IllegalArgumentException if {@code n} is negative
+     * @see #map(Iterator, Function)
+     */
+    public static <T> Iterator<T> skip(Iterator<T> iterator, long n) {
+        Objects.requireNonNull(iterator);
+        if (n < 0)
+            throw new IllegalArgumentException("Count can't be negative");
+        return FusedIterator.skip(iterator, n);
+    }
+
+    /**
+     * Returns an iterator of consecutive batches of {@code size} items of
+     * {@code iterator}. The last batch holds the remaining items and may be
+     * smaller.
+     * <p>
+     * To avoid allocating a list per batch the same list is returned by every
+     * call to {@code next}, refilled with the next batch. Callers that keep a
+     * batch after the following call to {@code next} must copy it.
+     * 
+     * @param <T>      the item type
+     * @param iterator the iterator. can't be null
+     * @param size     the number of items per batch
+     * @return iterator of batches
+     * @throws NullPointerException     if {@code iterator} is null
+     * @throws IllegalArgumentException if {@code size} is less than 1
+     */
+    public static <T> Iterator<List<T>> batched(Iterator<T> iterator, int size) {
+        Objects.requireNonNull(iterator);
+        if (size < 1)
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+
+        List<T> batch = new ArrayList<>(Math.min(size, 1 << 10));
+        return new Iterator<List<T>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!iterator.hasNext())
+                    throw new NoSuchElementException();
+
+                batch.clear();
+                while (batch.size() < size && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+                return batch;
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator that reads up to {@code depth} items of
+     * {@code iterator} ahead on a thread of {@code executor}.
+     * <p>
+     * Reading the source and consuming the items overlap, which helps when
+     * {@code iterator} is backed by slow I/O. {@code iterator} must not be
+     * used afterwards. The returned iterator should be closed if it isn't
+     * consumed to the end, to stop the background task.
+     * 
+     * @param <T>      the item type
+     * @param iterator the iterator. can't be null
+     * @param depth    the maximum number of items read ahead
+     * @param executor the executor to run the reading task on. can't be null
+     * @return prefetching iterator
+     * @throws NullPointerException       if {@code iterator} or
+     *                                    {@code executor} is null
+     * @throws IllegalArgumentException   if {@code depth} is less than 1 or
+     *                                    {@code executor} runs the task on
+     *                                    the calling thread
+     * @throws RejectedExecutionException if {@code executor} rejects the task
+     * @see PrefetchIterator
+     */
+    public static <T> PrefetchIterator<T> prefetch(Iterator<? extends T> iterator, int depth, Executor executor) {
+        Objects.requireNonNull(iterator);
+        Objects.requireNonNull(executor);
+        if (depth < 1)
+            throw new IllegalArgumentException("Depth must be greater than 0");
+        return new PrefetchIterator<>(iterator, depth, executor);
+    }
+
+    /**
+     * Returns a source that splits the items of the iterator between many
+     * consumer threads.
+     * <p>
+     * Consumers lock the iterator once per batch of {@code batchSize} items
+     * instead of once per item. {@code iterator} must not be used afterwards.
+     * 
+     * @param <T>       the item type
+     * @param iterator  the iterator. can't be null
+     * @param batchSize the maximum number of items a consumer claims at once
+     * @return shared source of the items
+     * @throws NullPointerException     if {@code iterator} is null
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1
+     * @see SharedIterator
+     */
+    public static <T> SharedIterator<T> shared(Iterator<? extends T> iterator, int batchSize) {
+        Objects.requireNonNull(iterator);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        return new SharedIterator<>(iterator, batchSize);
+    }
+
+    /**
+     * Returns a lazy iterator of the items of {@code iterator} without
+     * duplicates.
+     * <p>
+     * Items are compared with {@code equals} and the first occurrence is kept.
+     * The items seen so far are held in a HashSet.
+     * 
+     * @param <T>      the item type
+     * @param iterator the iterator. can't be null
+     * @return iterator of the distinct items
+     * @throws NullPointerException if {@code iterator} is null
+     */
+    public static <T> Iterator<T> distinct(Iterator<T> iterator) {
+        Objects.requireNonNull(iterator);
+        Set<T> seen = new HashSet<>();
+        return FusedIterator.filter(iterator, seen::add);
+    }
+
     /**
      * Returns a string representation of the iterator.
      * <p>
@@ -223,4 +644,125 @@ public final class JIterator {
         sb.append("]");
         return sb.toString();
     }
+
+    /**
+     * Returns a string representation of at most the first
+     * {@code maxElements} items of the iterator.
+     * <p>
+     * The format is that of {@link #toString(Iterator)}, with {@code "..."}
+     * before the closing bracket if items were left out. Only the first
+     * {@code maxElements} items are read from the iterator.
+     * 
+     * @param <T>         the item type
+     * @param iterator    the iterator. can be null
+     * @param maxElements the maximum number of items to include
+     * @return bounded string representation of {@code iterator}
+     * @throws IllegalArgumentException if {@code maxElements} is negative
+     */
+    public static <T> String toString(Iterator<T> iterator, int maxElements) {
+        return appendTo(new StringBuilder(), iterator, maxElements, Integer.MAX_VALUE).toString();
+    }
+
+    /**
+     * Appends a string representation of the iterator to {@code sb}.
+     * 
+     * @param iterator    the iterator. can be null
+     * @param sb          the StringBuilder to append to. can't be null
+     * @param maxElements the maximum number of items to include
+     * @param maxChars    the maximum number of characters of items and
+     *                    separators to include
+     * @return {@code sb}
+     * @throws NullPointerException     if {@code sb} is null
+     * @throws IllegalArgumentException if {@code maxElements} or
+     *                                  {@code maxChars} is negative
+     * @see #appendTo(Appendable, Iterator, int, int)
+     */
+    public static StringBuilder appendTo(StringBuilder sb, Iterator<?> iterator, int maxElements, int maxChars) {
+        try {
+            appendItems(sb, iterator, maxElements, maxChars);
+            return sb;
+        } catch (IOException e) {
+            // StringBuilder doesn't throw IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends a string representation of the iterator to {@code out} without
+     * building it in memory first.
+     * <p>
+     * The format is that of {@link #toString(Iterator)}. At most
+     * {@code maxElements} items are read from the iterator, and the items and
+     * separators are cut after {@code maxChars} characters. If anything was
+     * left out {@code "..."} is appended before the closing bracket. Items
+     * that are CharSequences are appended without converting them to
+     * Strings, so a long item is never copied past the limit.
+     * 
+     * @param <A>         the Appendable type
+     * @param out         the Appendable to append to, such as a Writer. can't
+     *                    be null
+     * @param iterator    the iterator. can be null
+     * @param maxElements the maximum number of items to include
+     * @param maxChars    the maximum number of characters of items and
+     *                    separators to include
+     * @return {@code out}
+     * @throws IOException              if {@code out} throws IOException
+     * @throws NullPointerException     if {@code out} is null
+     * @throws IllegalArgumentException if {@code maxElements} or
+     *                                  {@code maxChars} is negative
+     */
+    public static <A extends Appendable> A appendTo(A out, Iterator<?> iterator, int maxElements, int maxChars)
+            throws IOException {
+        appendItems(out, iterator, maxElements, maxChars);
+        return out;
+    }
+
+    private static void appendItems(Appendable out, Iterator<?> iterator, int maxElements, int maxChars)
+            throws IOException {
+        Objects.requireNonNull(out);
+        if (maxElements < 0)
+            throw new IllegalArgumentException("Max elements can't be negative");
+        if (maxChars < 0)
+            throw new IllegalArgumentException("Max chars can't be negative");
+
+        out.append('[');
+        if (iterator != null) {
+            int count = 0;
+            int budget = maxChars;
+            while (iterator.hasNext()) {
+                if (count == maxElements) {
+                    out.append(count == 0 ? "" : ", ").append(TRUNCATED);
+                    break;
+                }
+
+                Object elem = iterator.next();
+                CharSequence text = elem instanceof CharSequence ? (CharSequence) elem : String.valueOf(elem);
+                if (count > 0)
+                    budget = appendLimited(out, ", ", budget);
+                budget = appendLimited(out, text, budget);
+                count++;
+                if (budget < 0) {
+                    out.append(TRUNCATED);
+                    break;
+                }
+            }
+        }
+        out.append(']');
+    }
+
+    /*
+     * Appends as much of text as fits in budget and returns the remaining
+     * budget, or -1 if text was cut.
+     */
+    private static int appendLimited(Appendable out, CharSequence text, int budget) throws IOException {
+        if (budget < 0)
+            return budget;
+        int length = text.length();
+        if (length <= budget) {
+            out.append(text);
+            return budget - length;
+        }
+        out.append(text, 0, budget);
+        return -1;
+    }
 }
@@ -2,6 +2,9 @@ package jutil;
 
 import static java.lang.Math.log;
 
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
 /**
  * Utility class for mathematical operations
  */
@@ -11,6 +14,20 @@ public final class JMath {
 
     private static final double LN_2 = log(2);
 
+    private static final int[] SMALL_PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61 };
+    private static final long SMALL_PRIME_LIMIT = 67;
+    private static final long[] MILLER_RABIN_BASES = { 2, 325, 9375, 28178, 450775, 9780504, 1795265022 };
+
+    private static final long OVERFLOW = Long.MIN_VALUE;
+    private static final long[] POWERS_OF_10 = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+            100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+            100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+            1000000000000000000L };
+
+    private static final long MAX_SQRT = 3037000499L;
+    private static final int SEGMENT_BITS = 1 << 18;
+    private static final int SIEVE_BASE_LIMIT = 1 << 22;
+
     /**
      * Returns the floor of base 2 logarithm of {@code x}
      * 
@@ -64,6 +81,7 @@ public final class JMath {
      * 
      * @param x postive value
      * @return base 2 log of x
+     * @see JFastMath#log2(double)
      */
     public static double log2(double x) {
         if (x <= 0)
@@ -94,13 +112,24 @@ public final class JMath {
 
     /**
      * Returns {@code base^power % mod}
+     * <p>
+     * When {@code mod} is a positive integer and {@code power} isn't negative
+     * the result is computed exactly by
+     * {@link JModular#modpow(long, long, long)}. The double arithmetic used
+     * otherwise loses precision for values above {@code 2^53}.
      * 
      * @param base  the base
      * @param power the exponent
      * @param mod   the modulo
      * @return base^power % mod
+     * @deprecated use {@link JModular#modpow(long, long, long)}, which is exact
+     *             for every {@code long} modulus
      */
+    @Deprecated
     public static double modpow(long base, long power, double mod) {
+        if (power >= 0 && mod >= 1 && mod < 0x1p63 && isInt(mod))
+            return JModular.modpow(base, power, (long) mod);
+
         base %= mod;
         if (base == 0)
             return 0;
@@ -118,25 +147,161 @@ public final class JMath {
 
     /**
      * Returns {@code base^power}
+     * <p>
+     * The power is computed exactly in {@code long} arithmetic when it is
+     * certain to fit, so the result is the correctly rounded value of the
+     * exact power. Larger and negative powers are computed by
+     * {@link Math#pow(double, double)}, which rounds a base above
+     * {@code 2^53} to a double first.
      * 
      * @param base  the base
      * @param power the exponent
      * @return base^power
      */
     public static double pow(long base, long power) {
-        double x = 1;
-        while (power > 0) {
-            if (power % 2 == 1) {
-                x *= base;
+        if (power < 0)
+            return Math.pow(base, power);
+        if (power == 0)
+            return 1;
+        if (base == 0 || base == 1)
+            return base;
+        if (base == -1)
+            return (power & 1) == 0 ? 1 : -1;
+
+        // |base| >= 2 here, so the power fits when bits * power <= 62
+        long magnitude = Math.abs(base);
+        int bits = 64 - Long.numberOfLeadingZeros(magnitude);
+        if (base == Long.MIN_VALUE || power > 62 || bits * (int) power > 62)
+            return Math.pow(base, power);
+        return powUnchecked(base, (int) power);
+    }
+
+    /**
+     * Returns {@code base^exponent}, throwing an exception if the result
+     * overflows an {@code int}
+     * <p>
+     * Powers of {@code 2} and {@code 10} are looked up in a table.
+     * 
+     * @param base     the base
+     * @param exponent the exponent, not negative
+     * @return base^exponent
+     * @throws IllegalArgumentException if {@code exponent} is negative
+     * @throws ArithmeticException      if the result overflows an int
+     */
+    public static int powExact(int base, int exponent) {
+        long result = powExact((long) base, exponent);
+        if ((int) result != result)
+            throw new ArithmeticException("integer overflow");
+        return (int) result;
+    }
+
+    /**
+     * Returns {@code base^exponent}, throwing an exception if the result
+     * overflows a {@code long}
+     * <p>
+     * Powers of {@code 2} and {@code 10} are looked up in a table, other powers
+     * are computed by squaring the base.
+     * 
+     * @param base     the base
+     * @param exponent the exponent, not negative
+     * @return base^exponent
+     * @throws IllegalArgumentException if {@code exponent} is negative
+     * @throws ArithmeticException      if the result overflows a long
+     */
+    public static long powExact(long base, int exponent) {
+        long result = powOrOverflow(base, exponent);
+        if (result == OVERFLOW && !isMinValue(base, exponent))
+            throw new ArithmeticException("long overflow");
+        return result;
+    }
+
+    /**
+     * Returns {@code base^exponent}, or {@code Long.MAX_VALUE} or
+     * {@code Long.MIN_VALUE} if the result overflows a {@code long} in that
+     * direction
+     * 
+     * @param base     the base
+     * @param exponent the exponent, not negative
+     * @return base^exponent clamped to the range of long
+     * @throws IllegalArgumentException if {@code exponent} is negative
+     * @see #powExact(long, int)
+     */
+    public static long saturatedPow(long base, int exponent) {
+        long result = powOrOverflow(base, exponent);
+        if (result != OVERFLOW || isMinValue(base, exponent))
+            return result;
+        return base < 0 && (exponent & 1) != 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+
+    /*
+     * Returns base^exponent, or OVERFLOW if it doesn't fit in a long. OVERFLOW
+     * is also the exact value of some powers, see isMinValue.
+     */
+    private static long powOrOverflow(long base, int exponent) {
+        if (exponent < 0)
+            throw new IllegalArgumentException("Exponent can't be negative");
+
+        if (base == 2)
+            return exponent < 63 ? 1L << exponent : OVERFLOW;
+        if (base == 10)
+            return exponent < POWERS_OF_10.length ? POWERS_OF_10[exponent] : OVERFLOW;
+        if (base == 0 || base == 1)
+            return exponent == 0 ? 1 : base;
+        if (base == -1)
+            return (exponent & 1) == 0 ? 1 : -1;
+        if (exponent >= 63)
+            return OVERFLOW;
+
+        long result = 1;
+        long b = base;
+        int e = exponent;
+        while (true) {
+            if ((e & 1) != 0) {
+                long hi = Math.multiplyHigh(result, b);
+                long lo = result * b;
+                if (hi != lo >> 63)
+                    return OVERFLOW;
+                result = lo;
             }
-            power >>= 1;
-            x *= x;
+            e >>>= 1;
+            if (e == 0)
+                return result;
+            long hi = Math.multiplyHigh(b, b);
+            long lo = b * b;
+            if (hi != lo >> 63)
+                return OVERFLOW;
+            b = lo;
         }
-        return x;
+    }
+
+    /*
+     * Checks if base^exponent is exactly Long.MIN_VALUE = -2^63, which is the
+     * case for odd powers of negative powers of two with k * exponent == 63.
+     */
+    private static boolean isMinValue(long base, int exponent) {
+        return base < 0 && isPowerOfTwo(-base) && (long) Long.numberOfTrailingZeros(base) * exponent == 63;
+    }
+
+    /*
+     * Returns base^exponent for a result known to fit in a long.
+     */
+    private static long powUnchecked(long base, int exponent) {
+        long result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0)
+                result *= base;
+            exponent >>>= 1;
+            if (exponent > 0)
+                base *= base;
+        }
+        return result;
     }
 
     /**
      * Checks if {@code n} is prime or not
+     * <p>
+     * Small factors are found by trial division, then a Miller-Rabin test with
+     * a fixed set of bases that is deterministic for every {@code long}.
      * 
      * @param n a value
      * @return true if {@code n} is prime and false otherwise
@@ -144,19 +309,412 @@ public final class JMath {
     public static boolean isPrime(long n) {
         if (n < 2)
             return false;
-        if (n == 2 || n == 3)
+        for (int p : SMALL_PRIMES) {
+            if (n == p)
+                return true;
+            if (n % p == 0)
+                return false;
+        }
+        if (n < SMALL_PRIME_LIMIT * SMALL_PRIME_LIMIT)
             return true;
-        if (n % 2 == 0 || n % 3 == 0)
-            return false;
+        return millerRabin(n);
+    }
+
+    /**
+     * Returns the primes between {@code lo} and {@code hi}, inclusive, in
+     * ascending order.
+     * <p>
+     * The range is split into segments that fit in the CPU cache, and the
+     * odd numbers of each segment are sieved on the common ForkJoinPool by
+     * the primes up to {@code sqrt(hi)}. When {@code sqrt(hi)} is too large
+     * to sieve by all of them, the numbers left by the smaller primes are
+     * tested with {@link #isPrime(long)}.
+     * 
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the primes in {@code [lo, hi]}
+     * @throws IllegalArgumentException if the range is longer than
+     *                                  {@code Integer.MAX_VALUE}
+     */
+    public static long[] primesInRange(long lo, long hi) {
+        lo = Math.max(lo, 2);
+        if (lo > hi)
+            return new long[0];
+        if (hi - lo >= Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Range is too large: [" + lo + ", " + hi + "]");
+
+        boolean two = lo == 2;
+        long first = Math.max(lo, 3) | 1;
+        if (first > hi)
+            return two ? new long[] { 2 } : new long[0];
+
+        long sqrtHi = sqrt(hi);
+        int[] basePrimes = oddPrimesUpTo((int) Math.min(sqrtHi, SIEVE_BASE_LIMIT));
+        boolean complete = sqrtHi <= SIEVE_BASE_LIMIT;
+
+        long odds = (hi - first) / 2 + 1;
+        int segments = (int) ((odds + SEGMENT_BITS - 1) / SEGMENT_BITS);
+        long[][] found = new long[segments][];
+        IntStream.range(0, segments).parallel().forEach(i -> {
+            long start = first + 2L * i * SEGMENT_BITS;
+            int bits = (int) Math.min(SEGMENT_BITS, odds - (long) i * SEGMENT_BITS);
+            found[i] = sieveSegment(start, bits, basePrimes, complete);
+        });
+
+        int count = two ? 1 : 0;
+        for (long[] f : found) {
+            count += f.length;
+        }
+        long[] primes = new long[count];
+        int k = 0;
+        if (two)
+            primes[k++] = 2;
+        for (long[] f : found) {
+            System.arraycopy(f, 0, primes, k, f.length);
+            k += f.length;
+        }
+        return primes;
+    }
+
+    /*
+     * Sieves the odd numbers start, start + 2, ... with bits of them, and
+     * returns the ones that are prime.
+     */
+    private static long[] sieveSegment(long start, int bits, int[] basePrimes, boolean complete) {
+        long[] composite = new long[(bits + 63) >>> 6];
+        long last = start + 2L * (bits - 1);
+        for (int p : basePrimes) {
+            long square = (long) p * p;
+            if (square > last)
+                break;
+
+            long m;
+            if (square >= start) {
+                m = square;
+            } else {
+                long r = start % p;
+                m = r == 0 ? start : start + (p - r);
+                if ((m & 1) == 0)
+                    m += p;
+            }
+            for (long j = (m - start) >>> 1; j < bits; j += p) {
+                composite[(int) (j >>> 6)] |= 1L << j;
+            }
+        }
+
+        long limit = (long) SIEVE_BASE_LIMIT * SIEVE_BASE_LIMIT;
+        long[] primes = new long[bits - bitCount(composite, bits)];
+        int k = 0;
+        for (int j = 0; j < bits; j++) {
+            if ((composite[j >>> 6] & 1L << j) != 0)
+                continue;
+            long n = start + 2L * j;
+            if (!complete && n > limit && !isPrime(n))
+                continue;
+            primes[k++] = n;
+        }
+        return k == primes.length ? primes : Arrays.copyOf(primes, k);
+    }
+
+    private static int bitCount(long[] words, int bits) {
+        int count = 0;
+        for (long w : words) {
+            count += Long.bitCount(w);
+        }
+        return count;
+    }
+
+    /*
+     * Returns the odd primes up to n with a plain sieve of Eratosthenes.
+     */
+    private static int[] oddPrimesUpTo(int n) {
+        if (n < 3)
+            return new int[0];
+        boolean[] composite = new boolean[n + 1];
+        int count = 0;
+        int[] primes = new int[Math.max(16, (int) (1.3 * n / Math.log(n)))];
+        for (int i = 3; i <= n; i += 2) {
+            if (composite[i])
+                continue;
+            if (count == primes.length)
+                primes = Arrays.copyOf(primes, count * 2);
+            primes[count++] = i;
+            for (long j = (long) i * i; j <= n; j += 2 * i) {
+                composite[(int) j] = true;
+            }
+        }
+        return Arrays.copyOf(primes, count);
+    }
+
+    /*
+     * Deterministic for all n < 2^64 with these bases (Jim Sinclair). n must be
+     * odd and greater than the largest base prime factor checked by the caller.
+     */
+    private static boolean millerRabin(long n) {
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+
+        Montgomery montgomery = new Montgomery(n);
+        long one = montgomery.one();
+        long minusOne = n - one;
+        for (long base : MILLER_RABIN_BASES) {
+            long a = base % n;
+            if (a == 0)
+                continue;
 
-        long sqrtN = (long) Math.sqrt(n) + 1;
-        for (long i = 6L; i <= sqrtN; i += 6) {
-            if (n % (i - 1) == 0 || n % (i + 1) == 0)
+            long x = montgomery.pow(montgomery.toMontgomery(a), d);
+            if (x == one || x == minusOne)
+                continue;
+
+            boolean composite = true;
+            for (int r = 1; r < s; r++) {
+                x = montgomery.square(x);
+                if (x == minusOne) {
+                    composite = false;
+                    break;
+                }
+            }
+            if (composite)
                 return false;
         }
         return true;
     }
 
+    private static long sqrt(long n) {
+        long r = (long) Math.sqrt(n);
+        while (r * r > n) {
+            r--;
+        }
+        while (r < MAX_SQRT && (r + 1) * (r + 1) <= n) {
+            r++;
+        }
+        return r;
+    }
+
+    /**
+     * Returns the greatest common divisor of {@code a} and {@code b}
+     * <p>
+     * Uses the binary (Stein's) algorithm, which needs only shifts and
+     * subtractions. The result is never negative and {@code gcd(0, 0)} is
+     * {@code 0}.
+     * 
+     * @param a a value
+     * @param b a value
+     * @return gcd of a and b
+     * @throws ArithmeticException if the result is {@code 2^63}, which happens
+     *                             only for {@code Long.MIN_VALUE} and
+     *                             {@code 0} or {@code Long.MIN_VALUE}
+     */
+    public static long gcd(long a, long b) {
+        // the magnitudes are handled as unsigned so Long.MIN_VALUE is 2^63
+        a = a < 0 ? -a : a;
+        b = b < 0 ? -b : b;
+        if (a == 0 || b == 0) {
+            long g = a | b;
+            if (g < 0)
+                throw new ArithmeticException("gcd is 2^63");
+            return g;
+        }
+
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>>= Long.numberOfTrailingZeros(a);
+        while (b != 0) {
+            b >>>= Long.numberOfTrailingZeros(b);
+            if (Long.compareUnsigned(a, b) > 0) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        }
+        long g = a << shift;
+        if (g < 0)
+            throw new ArithmeticException("gcd is 2^63");
+        return g;
+    }
+
+    /**
+     * Returns the least common multiple of {@code a} and {@code b}
+     * <p>
+     * The result is never negative and is {@code 0} if either value is
+     * {@code 0}.
+     * 
+     * @param a a value
+     * @param b a value
+     * @return lcm of a and b
+     * @throws ArithmeticException if the result overflows a {@code long}
+     */
+    public static long lcm(long a, long b) {
+        if (a == 0 || b == 0)
+            return 0;
+        long l = Math.multiplyExact(a / gcd(a, b), b);
+        if (l == Long.MIN_VALUE)
+            throw new ArithmeticException("long overflow");
+        return Math.abs(l);
+    }
+
+    /**
+     * Returns the prime factors of {@code n} in ascending order, each as
+     * many times as it divides {@code n}
+     * <p>
+     * Small factors are found by trial division. The rest is split with
+     * Brent's variant of Pollard's rho in {@link Montgomery} form, and
+     * {@link #isPrime(long)} decides when a part is prime. {@code factor(1)}
+     * is empty.
+     * 
+     * @param n a positive value
+     * @return the prime factors of n
+     * @throws IllegalArgumentException if {@code n} is less than 1
+     */
+    public static long[] factor(long n) {
+        if (n < 1)
+            throw new IllegalArgumentException("Value must be greater than 0");
+
+        // a long has at most 63 prime factors
+        long[] factors = new long[63];
+        int count = 0;
+        for (int p : SMALL_PRIMES) {
+            while (n % p == 0) {
+                factors[count++] = p;
+                n /= p;
+            }
+        }
+
+        long[] pending = new long[63];
+        int top = 0;
+        if (n > 1)
+            pending[top++] = n;
+        while (top > 0) {
+            long m = pending[--top];
+            if (m < SMALL_PRIME_LIMIT * SMALL_PRIME_LIMIT || isPrime(m)) {
+                factors[count++] = m;
+                continue;
+            }
+            long d = pollardBrent(m);
+            pending[top++] = d;
+            pending[top++] = m / d;
+        }
+
+        Arrays.sort(factors, 0, count);
+        return Arrays.copyOf(factors, count);
+    }
+
+    /**
+     * Returns the positive divisors of {@code n} in ascending order,
+     * including {@code 1} and {@code n}
+     * 
+     * @param n a positive value
+     * @return the divisors of n
+     * @throws IllegalArgumentException if {@code n} is less than 1
+     * @see #factor(long)
+     */
+    public static long[] divisors(long n) {
+        long[] factors = factor(n);
+
+        int count = 1;
+        for (int i = 0; i < factors.length;) {
+            int j = i;
+            while (j < factors.length && factors[j] == factors[i]) {
+                j++;
+            }
+            count *= j - i + 1;
+            i = j;
+        }
+
+        long[] divisors = new long[count];
+        divisors[0] = 1;
+        int size = 1;
+        for (int i = 0; i < factors.length;) {
+            long p = factors[i];
+            int j = i;
+            while (j < factors.length && factors[j] == p) {
+                j++;
+            }
+            int base = size;
+            long power = 1;
+            for (int e = i; e < j; e++) {
+                power *= p;
+                for (int k = 0; k < base; k++) {
+                    divisors[size++] = divisors[k] * power;
+                }
+            }
+            i = j;
+        }
+        Arrays.sort(divisors);
+        return divisors;
+    }
+
+    /**
+     * Returns Euler's totient of {@code n}, the number of values in
+     * {@code [1, n]} that are coprime with {@code n}
+     * 
+     * @param n a positive value
+     * @return totient of n
+     * @throws IllegalArgumentException if {@code n} is less than 1
+     * @see #factor(long)
+     */
+    public static long totient(long n) {
+        long result = n;
+        long previous = 0;
+        for (long p : factor(n)) {
+            if (p != previous) {
+                result = result / p * (p - 1);
+                previous = p;
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Returns a non-trivial factor of the odd composite n with Brent's cycle
+     * detection, taking one gcd per batch of steps.
+     */
+    private static long pollardBrent(long n) {
+        final int batch = 128;
+        Montgomery montgomery = new Montgomery(n);
+
+        for (long c = 1;; c++) {
+            long add = montgomery.toMontgomery(c);
+            long y = montgomery.toMontgomery(2);
+            long x = y;
+            long ys = y;
+            long q = montgomery.one();
+            long g = 1;
+
+            for (long r = 1; g == 1; r <<= 1) {
+                x = y;
+                for (long i = 0; i < r; i++) {
+                    y = rhoStep(montgomery, y, add, n);
+                }
+                for (long k = 0; k < r && g == 1; k += batch) {
+                    ys = y;
+                    long steps = Math.min(batch, r - k);
+                    for (long i = 0; i < steps; i++) {
+                        y = rhoStep(montgomery, y, add, n);
+                        q = montgomery.multiply(q, x > y ? x - y : y - x);
+                    }
+                    g = gcd(q, n);
+                }
+            }
+
+            if (g == n) {
+                // the batch overshot, redo it one step at a time
+                do {
+                    ys = rhoStep(montgomery, ys, add, n);
+                    g = gcd(x > ys ? x - ys : ys - x, n);
+                } while (g == 1);
+            }
+            if (g != n)
+                return g;
+        }
+    }
+
+    private static long rhoStep(Montgomery montgomery, long y, long add, long n) {
+        long s = montgomery.square(y) - (n - add);
+        return s < 0 ? s + n : s;
+    }
+
     /**
      * Calculates the number of bits used to represent {@code l}
      * <p>
@@ -169,6 +727,287 @@ public final class JMath {
         return log2Ceil(l);
     }
 
+    /**
+     * Returns the minimum of the elements of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return the minimum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     */
+    public static int min(int[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.min(a, from, to), Math::min);
+    }
+
+    /**
+     * Returns the maximum of the elements of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return the maximum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     */
+    public static int max(int[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.max(a, from, to), Math::max);
+    }
+
+    /**
+     * Returns the sum of the elements of {@code a}
+     * <p>
+     * The sum is accumulated in a {@code long}, so it can't overflow.
+     * 
+     * @param a the array. can't be null
+     * @return the sum of {@code a}, {@code 0} if it is empty
+     * @throws NullPointerException if {@code a} is null
+     */
+    public static long sum(int[] a) {
+        if (a.length == 0)
+            return 0;
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.sum(a, from, to), Long::sum);
+    }
+
+    /**
+     * Returns the index of the first minimum element of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return index of the minimum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #min(int[])
+     */
+    public static int argmin(int[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.indexOf(a, ArrayReductions.min(a, from, to), from, to),
+                (i, j) -> a[i] <= a[j] ? i : j);
+    }
+
+    /**
+     * Returns the index of the first maximum element of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return index of the maximum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #max(int[])
+     */
+    public static int argmax(int[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.indexOf(a, ArrayReductions.max(a, from, to), from, to),
+                (i, j) -> a[i] >= a[j] ? i : j);
+    }
+
+    /**
+     * Returns the minimum and the maximum of the elements of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return array of the minimum and the maximum of {@code a}, in that
+     *         order
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #min(int[])
+     * @see #max(int[])
+     */
+    public static int[] minmax(int[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.minmax(a, from, to),
+                (l, r) -> new int[] { Math.min(l[0], r[0]), Math.max(l[1], r[1]) });
+    }
+
+    /**
+     * Returns the minimum of the elements of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return the minimum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     */
+    public static long min(long[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.min(a, from, to), Math::min);
+    }
+
+    /**
+     * Returns the maximum of the elements of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return the maximum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     */
+    public static long max(long[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.max(a, from, to), Math::max);
+    }
+
+    /**
+     * Returns the sum of the elements of {@code a}
+     * <p>
+     * Like {@code +}, the sum wraps around on overflow.
+     * 
+     * @param a the array. can't be null
+     * @return the sum of {@code a}, {@code 0} if it is empty
+     * @throws NullPointerException if {@code a} is null
+     */
+    public static long sum(long[] a) {
+        if (a.length == 0)
+            return 0;
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.sum(a, from, to), Long::sum);
+    }
+
+    /**
+     * Returns the index of the first minimum element of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return index of the minimum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #min(long[])
+     */
+    public static int argmin(long[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.indexOf(a, ArrayReductions.min(a, from, to), from, to),
+                (i, j) -> a[i] <= a[j] ? i : j);
+    }
+
+    /**
+     * Returns the index of the first maximum element of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return index of the maximum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #max(long[])
+     */
+    public static int argmax(long[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.indexOf(a, ArrayReductions.max(a, from, to), from, to),
+                (i, j) -> a[i] >= a[j] ? i : j);
+    }
+
+    /**
+     * Returns the minimum and the maximum of the elements of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return array of the minimum and the maximum of {@code a}, in that
+     *         order
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #min(long[])
+     * @see #max(long[])
+     */
+    public static long[] minmax(long[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.minmax(a, from, to),
+                (l, r) -> new long[] { Math.min(l[0], r[0]), Math.max(l[1], r[1]) });
+    }
+
+    /**
+     * Returns the minimum of the elements of {@code a}
+     * <p>
+     * As with {@link Math#min(double, double)}, the result is {@code NaN} if
+     * any element is {@code NaN}, and {@code -0.0} is less than {@code 0.0}.
+     * 
+     * @param a the array. can't be null or empty
+     * @return the minimum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     */
+    public static double min(double[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.min(a, from, to), Math::min);
+    }
+
+    /**
+     * Returns the maximum of the elements of {@code a}
+     * <p>
+     * As with {@link Math#max(double, double)}, the result is {@code NaN} if
+     * any element is {@code NaN}, and {@code 0.0} is greater than {@code -0.0}.
+     * 
+     * @param a the array. can't be null or empty
+     * @return the maximum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     */
+    public static double max(double[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.max(a, from, to), Math::max);
+    }
+
+    /**
+     * Returns the sum of the elements of {@code a}
+     * <p>
+     * Uses pairwise summation, which keeps the rounding error small. The
+     * additions are done in the same order whether or not the array is summed
+     * in parallel, so the result is deterministic.
+     * 
+     * @param a the array. can't be null
+     * @return the sum of {@code a}, {@code 0} if it is empty
+     * @throws NullPointerException if {@code a} is null
+     */
+    public static double sum(double[] a) {
+        if (a.length == 0)
+            return 0;
+        return ArrayReductions.reduce(a.length, (from, to) -> ArrayReductions.sum(a, from, to), Double::sum);
+    }
+
+    /**
+     * Returns the index of the first minimum element of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return index of the minimum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #min(double[])
+     */
+    public static int argmin(double[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.indexOf(a, ArrayReductions.min(a, from, to), from, to),
+                (i, j) -> Double.compare(a[i], Math.min(a[i], a[j])) == 0 ? i : j);
+    }
+
+    /**
+     * Returns the index of the first maximum element of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return index of the maximum of {@code a}
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #max(double[])
+     */
+    public static int argmax(double[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.indexOf(a, ArrayReductions.max(a, from, to), from, to),
+                (i, j) -> Double.compare(a[i], Math.max(a[i], a[j])) == 0 ? i : j);
+    }
+
+    /**
+     * Returns the minimum and the maximum of the elements of {@code a}
+     * 
+     * @param a the array. can't be null or empty
+     * @return array of the minimum and the maximum of {@code a}, in that
+     *         order
+     * @throws NullPointerException     if {@code a} is null
+     * @throws IllegalArgumentException if {@code a} is empty
+     * @see #min(double[])
+     * @see #max(double[])
+     */
+    public static double[] minmax(double[] a) {
+        checkNotEmpty(a.length);
+        return ArrayReductions.reduce(a.length,
+                (from, to) -> ArrayReductions.minmax(a, from, to),
+                (l, r) -> new double[] { Math.min(l[0], r[0]), Math.max(l[1], r[1]) });
+    }
+
     /**
      * Returns the minimum value of the elements {@code a}
      * 
@@ -208,4 +1047,9 @@ public final class JMath {
         }
         return min;
     }
+
+    private static void checkNotEmpty(int length) {
+        if (length == 0)
+            throw new IllegalArgumentException("Array can't be empty");
+    }
 }
@@ -0,0 +1,205 @@
+package jutil;
+
+import java.util.Objects;
+
+/**
+ * Utility class for exact modular arithmetic on {@code long} values
+ * <p>
+ * Every method accepts any {@code long} operands, including negative ones,
+ * and returns a result in {@code [0, m)} for a modulus {@code m} that must be
+ * positive. Intermediate products are computed in 128 bits, so the results are
+ * exact for every modulus up to {@code Long.MAX_VALUE}. Repeated operations
+ * with the same odd modulus are done in {@link Montgomery} form.
+ */
+public final class JModular {
+    private JModular() {
+    }
+
+    /**
+     * Returns {@code (a + b) mod m}
+     * 
+     * @param a the first operand
+     * @param b the second operand
+     * @param m the modulus
+     * @return (a + b) mod m
+     * @throws ArithmeticException if {@code m} isn't positive
+     */
+    public static long addmod(long a, long b, long m) {
+        checkModulus(m);
+        a = Math.floorMod(a, m);
+        b = Math.floorMod(b, m);
+        long r = a - (m - b);
+        return r < 0 ? r + m : r;
+    }
+
+    /**
+     * Returns {@code (a * b) mod m}
+     * 
+     * @param a the first operand
+     * @param b the second operand
+     * @param m the modulus
+     * @return (a * b) mod m
+     * @throws ArithmeticException if {@code m} isn't positive
+     */
+    public static long mulmod(long a, long b, long m) {
+        checkModulus(m);
+        return reduce(Math.floorMod(a, m), Math.floorMod(b, m), m);
+    }
+
+    /**
+     * Returns {@code base^exponent mod m}
+     * <p>
+     * A negative exponent raises the modular inverse of {@code base}.
+     * 
+     * @param base     the base
+     * @param exponent the exponent
+     * @param m        the modulus
+     * @return base^exponent mod m
+     * @throws ArithmeticException if {@code m} isn't positive, or
+     *                             {@code exponent} is negative and
+     *                             {@code base} isn't invertible mod {@code m}
+     */
+    public static long modpow(long base, long exponent, long m) {
+        checkModulus(m);
+        if (m == 1)
+            return 0;
+        if (exponent < 0) {
+            long inverse = modinv(base, m);
+            if (exponent == Long.MIN_VALUE)
+                return reduce(modpow(inverse, Long.MAX_VALUE, m), inverse, m);
+            base = inverse;
+            exponent = -exponent;
+        }
+        base = Math.floorMod(base, m);
+
+        if ((m & 1) != 0)
+            return new Montgomery(m).modpow(base, exponent);
+
+        long result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0)
+                result = reduce(result, base, m);
+            exponent >>= 1;
+            base = reduce(base, base, m);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code bases[i]^exponent mod m} for each index {@code i}
+     * <p>
+     * For an odd modulus the Montgomery constants are computed once for the
+     * whole array.
+     * 
+     * @param bases    the bases. can't be null
+     * @param exponent the exponent, not negative
+     * @param m        the modulus
+     * @return array of the powers
+     * @throws NullPointerException     if {@code bases} is null
+     * @throws IllegalArgumentException if {@code exponent} is negative
+     * @throws ArithmeticException      if {@code m} isn't positive
+     */
+    public static long[] modpow(long[] bases, long exponent, long m) {
+        Objects.requireNonNull(bases);
+        checkModulus(m);
+        if (exponent < 0)
+            throw new IllegalArgumentException("Exponent can't be negative");
+
+        long[] result = new long[bases.length];
+        if ((m & 1) != 0 && m > 1) {
+            Montgomery montgomery = new Montgomery(m);
+            for (int i = 0; i < bases.length; i++) {
+                result[i] = montgomery.modpow(bases[i], exponent);
+            }
+        } else {
+            for (int i = 0; i < bases.length; i++) {
+                result[i] = modpow(bases[i], exponent, m);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the inverse of {@code a} modulo {@code m}, the {@code x} in
+     * {@code [0, m)} with {@code a * x mod m == 1}
+     * 
+     * @param a the value to invert
+     * @param m the modulus
+     * @return the modular inverse of a
+     * @throws ArithmeticException if {@code m} isn't positive or {@code a}
+     *                             and {@code m} aren't coprime
+     */
+    public static long modinv(long a, long m) {
+        checkModulus(m);
+        if (m == 1)
+            return 0;
+
+        long r0 = m;
+        long r1 = Math.floorMod(a, m);
+        long s0 = 0;
+        long s1 = 1;
+        // |s| stays below m, so the coefficients can't overflow
+        while (r1 != 0) {
+            long q = r0 / r1;
+            long r = r0 - q * r1;
+            r0 = r1;
+            r1 = r;
+            long s = s0 - q * s1;
+            s0 = s1;
+            s1 = s;
+        }
+        if (r0 != 1)
+            throw new ArithmeticException("Not invertible: " + a + " mod " + m);
+        return s0 < 0 ? s0 + m : s0;
+    }
+
+    /*
+     * Returns a * b mod m for 0 <= a, b < m. The 128 bit product is reduced
+     * with a 128 by 64 bit division (Hacker's Delight, divlu), which can't
+     * overflow since the high half is less than m.
+     */
+    static long reduce(long a, long b, long m) {
+        long hi = Math.multiplyHigh(a, b);
+        long lo = a * b;
+        if (hi == 0 && lo >= 0)
+            return lo % m;
+        return remainder(hi, lo, m);
+    }
+
+    /*
+     * Returns (hi * 2^64 + lo) mod m for unsigned lo and hi < m.
+     */
+    static long remainder(long hi, long lo, long m) {
+        int shift = Long.numberOfLeadingZeros(m);
+        long v = m << shift;
+        long vHi = v >>> 32;
+        long vLo = v & 0xFFFFFFFFL;
+
+        long u32 = shift == 0 ? hi : hi << shift | lo >>> (64 - shift);
+        long u10 = lo << shift;
+
+        long u21 = divideStep(u32, u10 >>> 32, v, vHi, vLo);
+        return divideStep(u21, u10 & 0xFFFFFFFFL, v, vHi, vLo) >>> shift;
+    }
+
+    /*
+     * Divides the 96 bit (u, digit) by the normalized v and returns the
+     * remainder.
+     */
+    private static long divideStep(long u, long digit, long v, long vHi, long vLo) {
+        long q = Long.divideUnsigned(u, vHi);
+        long rhat = u - q * vHi;
+        while (q >>> 32 != 0 || Long.compareUnsigned(q * vLo, rhat << 32 | digit) > 0) {
+            q--;
+            rhat += vHi;
+            if (rhat >>> 32 != 0)
+                break;
+        }
+        return (u << 32 | digit) - q * v;
+    }
+
+    private static void checkModulus(long m) {
+        if (m <= 0)
+            throw new ArithmeticException("Modulus must be positive: " + m);
+    }
+}
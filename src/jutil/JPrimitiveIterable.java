@@ -0,0 +1,527 @@
+package jutil;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Utility class for {@link IntIterable}, {@link LongIterable} and
+ * {@link DoubleIterable}.
+ * <p>
+ * The methods mirror those of {@link JIterable} and never box the values.
+ * Array views created by this class answer {@code size}, {@code get} and
+ * {@code isEmpty} directly from the array without allocating.
+ */
+public final class JPrimitiveIterable {
+    private JPrimitiveIterable() {
+    }
+
+    /**
+     * Returns an empty {@code int} iterable.
+     * 
+     * @return empty iterable
+     */
+    public static IntIterable emptyIntIterable() {
+        return JPrimitiveIterator::emptyIntIterator;
+    }
+
+    /**
+     * Returns an iterable view of the values of {@code array}.
+     * <p>
+     * The array isn't copied, so changes to it are visible to the iterable.
+     * {@link #size(IntIterable)}, {@link #get(IntIterable, int)} and
+     * {@link #isEmpty(IntIterable)} on the view run in constant time without
+     * iterating.
+     * 
+     * @param array the array. can't be null
+     * @return iterable over the array
+     * @throws NullPointerException if {@code array} is null
+     */
+    public static IntIterable of(int[] array) {
+        return new IntArray(array, 0, array.length);
+    }
+
+    /**
+     * Returns an iterable view of the values of {@code array} from index
+     * {@code from}, inclusive, to index {@code to}, exclusive.
+     * 
+     * @param array the array. can't be null
+     * @param from  the first index
+     * @param to    the index after the last
+     * @return iterable over the range of the array
+     * @throws NullPointerException      if {@code array} is null
+     * @throws IndexOutOfBoundsException if the range is invalid
+     * @see #of(int[])
+     */
+    public static IntIterable of(int[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return new IntArray(array, from, to);
+    }
+
+    /**
+     * Returns the number of values contained in the iterable. Null safe.
+     * 
+     * @param iterable the iterable. can be null
+     * @return number of values in the iterable
+     */
+    public static int size(IntIterable iterable) {
+        if (iterable == null)
+            return 0;
+
+        if (iterable instanceof IntArray)
+            return ((IntArray) iterable).size();
+
+        return JPrimitiveIterator.size(iterable.iterator());
+    }
+
+    /**
+     * Returns an array of the values in the iterable. Null safe.
+     * 
+     * @param iterable the iterable. can be null
+     * @return array of the values in the iterable
+     */
+    public static int[] toArray(IntIterable iterable) {
+        if (iterable == null)
+            return new int[0];
+        return JPrimitiveIterator.toArray(iterable.iterator());
+    }
+
+    /**
+     * Returns the value at {@code index} in the iterable.
+     * 
+     * @param iterable the iterable
+     * @param index    the index to get
+     * @return value at {@code index} in the iterable
+     * @throws NullPointerException      if {@code iterable} is null
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public static int get(IntIterable iterable, int index) {
+        if (iterable instanceof IntArray) {
+            IntArray array = (IntArray) iterable;
+            Objects.checkIndex(index, array.size());
+            return array.array[array.from + index];
+        }
+        return JPrimitiveIterator.get(iterable.iterator(), index);
+    }
+
+    /**
+     * Returns the first value in the iterable.
+     * 
+     * @param iterable the iterable
+     * @return the first value
+     * @throws IndexOutOfBoundsException if there is no first value
+     */
+    public static int first(IntIterable iterable) {
+        return get(iterable, 0);
+    }
+
+    /**
+     * Checks if the iterable is empty.
+     * <p>
+     * A {@code null} iterable returns true.
+     * 
+     * @param iterable the iterable to check
+     * @return true if {@code iterable} is null or empty and false otherwise
+     */
+    public static boolean isEmpty(IntIterable iterable) {
+        if (iterable instanceof IntArray)
+            return ((IntArray) iterable).size() == 0;
+        return iterable == null || !iterable.iterator().hasNext();
+    }
+
+    /**
+     * Returns a string representation of the iterable, in the same format as
+     * {@link JIterable#toString(Iterable)}.
+     * 
+     * @param iterable the iterable
+     * @return string representation of {@code iterable}
+     */
+    public static String toString(IntIterable iterable) {
+        return JPrimitiveIterator.toString(iterable == null ? null : iterable.iterator());
+    }
+
+    /**
+     * Returns a primitive iterable over the values of {@code iterable}.
+     * <p>
+     * If {@code iterable} is already a primitive iterable it is returned as
+     * is, otherwise each value is unboxed as it is iterated.
+     * 
+     * @param iterable the iterable. can be null
+     * @return primitive iterable of the values, empty if {@code iterable} is
+     *         null
+     * @see JPrimitiveIterator#unboxInt(Iterator)
+     */
+    public static IntIterable unboxInt(Iterable<Integer> iterable) {
+        if (iterable == null)
+            return emptyIntIterable();
+        if (iterable instanceof IntIterable)
+            return (IntIterable) iterable;
+        return () -> JPrimitiveIterator.unboxInt(iterable.iterator());
+    }
+
+    /**
+     * Returns an empty {@code long} iterable.
+     * 
+     * @return empty iterable
+     */
+    public static LongIterable emptyLongIterable() {
+        return JPrimitiveIterator::emptyLongIterator;
+    }
+
+    /**
+     * Returns an iterable view of the values of {@code array}.
+     * <p>
+     * The array isn't copied, so changes to it are visible to the iterable.
+     * {@link #size(LongIterable)}, {@link #get(LongIterable, int)} and
+     * {@link #isEmpty(LongIterable)} on the view run in constant time without
+     * iterating.
+     * 
+     * @param array the array. can't be null
+     * @return iterable over the array
+     * @throws NullPointerException if {@code array} is null
+     */
+    public static LongIterable of(long[] array) {
+        return new LongArray(array, 0, array.length);
+    }
+
+    /**
+     * Returns an iterable view of the values of {@code array} from index
+     * {@code from}, inclusive, to index {@code to}, exclusive.
+     * 
+     * @param array the array. can't be null
+     * @param from  the first index
+     * @param to    the index after the last
+     * @return iterable over the range of the array
+     * @throws NullPointerException      if {@code array} is null
+     * @throws IndexOutOfBoundsException if the range is invalid
+     * @see #of(long[])
+     */
+    public static LongIterable of(long[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return new LongArray(array, from, to);
+    }
+
+    /**
+     * Returns the number of values contained in the iterable. Null safe.
+     * 
+     * @param iterable the iterable. can be null
+     * @return number of values in the iterable
+     */
+    public static int size(LongIterable iterable) {
+        if (iterable == null)
+            return 0;
+
+        if (iterable instanceof LongArray)
+            return ((LongArray) iterable).size();
+
+        return JPrimitiveIterator.size(iterable.iterator());
+    }
+
+    /**
+     * Returns an array of the values in the iterable. Null safe.
+     * 
+     * @param iterable the iterable. can be null
+     * @return array of the values in the iterable
+     */
+    public static long[] toArray(LongIterable iterable) {
+        if (iterable == null)
+            return new long[0];
+        return JPrimitiveIterator.toArray(iterable.iterator());
+    }
+
+    /**
+     * Returns the value at {@code index} in the iterable.
+     * 
+     * @param iterable the iterable
+     * @param index    the index to get
+     * @return value at {@code index} in the iterable
+     * @throws NullPointerException      if {@code iterable} is null
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public static long get(LongIterable iterable, int index) {
+        if (iterable instanceof LongArray) {
+            LongArray array = (LongArray) iterable;
+            Objects.checkIndex(index, array.size());
+            return array.array[array.from + index];
+        }
+        return JPrimitiveIterator.get(iterable.iterator(), index);
+    }
+
+    /**
+     * Returns the first value in the iterable.
+     * 
+     * @param iterable the iterable
+     * @return the first value
+     * @throws IndexOutOfBoundsException if there is no first value
+     */
+    public static long first(LongIterable iterable) {
+        return get(iterable, 0);
+    }
+
+    /**
+     * Checks if the iterable is empty.
+     * <p>
+     * A {@code null} iterable returns true.
+     * 
+     * @param iterable the iterable to check
+     * @return true if {@code iterable} is null or empty and false otherwise
+     */
+    public static boolean isEmpty(LongIterable iterable) {
+        if (iterable instanceof LongArray)
+            return ((LongArray) iterable).size() == 0;
+        return iterable == null || !iterable.iterator().hasNext();
+    }
+
+    /**
+     * Returns a string representation of the iterable, in the same format as
+     * {@link JIterable#toString(Iterable)}.
+     * 
+     * @param iterable the iterable
+     * @return string representation of {@code iterable}
+     */
+    public static String toString(LongIterable iterable) {
+        return JPrimitiveIterator.toString(iterable == null ? null : iterable.iterator());
+    }
+
+    /**
+     * Returns a primitive iterable over the values of {@code iterable}.
+     * <p>
+     * If {@code iterable} is already a primitive iterable it is returned as
+     * is, otherwise each value is unboxed as it is iterated.
+     * 
+     * @param iterable the iterable. can be null
+     * @return primitive iterable of the values, empty if {@code iterable} is
+     *         null
+     * @see JPrimitiveIterator#unboxLong(Iterator)
+     */
+    public static LongIterable unboxLong(Iterable<Long> iterable) {
+        if (iterable == null)
+            return emptyLongIterable();
+        if (iterable instanceof LongIterable)
+            return (LongIterable) iterable;
+        return () -> JPrimitiveIterator.unboxLong(iterable.iterator());
+    }
+
+    /**
+     * Returns an empty {@code double} iterable.
+     * 
+     * @return empty iterable
+     */
+    public static DoubleIterable emptyDoubleIterable() {
+        return JPrimitiveIterator::emptyDoubleIterator;
+    }
+
+    /**
+     * Returns an iterable view of the values of {@code array}.
+     * <p>
+     * The array isn't copied, so changes to it are visible to the iterable.
+     * {@link #size(DoubleIterable)}, {@link #get(DoubleIterable, int)} and
+     * {@link #isEmpty(DoubleIterable)} on the view run in constant time without
+     * iterating.
+     * 
+     * @param array the array. can't be null
+     * @return iterable over the array
+     * @throws NullPointerException if {@code array} is null
+     */
+    public static DoubleIterable of(double[] array) {
+        return new DoubleArray(array, 0, array.length);
+    }
+
+    /**
+     * Returns an iterable view of the values of {@code array} from index
+     * {@code from}, inclusive, to index {@code to}, exclusive.
+     * 
+     * @param array the array. can't be null
+     * @param from  the first index
+     * @param to    the index after the last
+     * @return iterable over the range of the array
+     * @throws NullPointerException      if {@code array} is null
+     * @throws IndexOutOfBoundsException if the range is invalid
+     * @see #of(double[])
+     */
+    public static DoubleIterable of(double[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return new DoubleArray(array, from, to);
+    }
+
+    /**
+     * Returns the number of values contained in the iterable. Null safe.
+     * 
+     * @param iterable the iterable. can be null
+     * @return number of values in the iterable
+     */
+    public static int size(DoubleIterable iterable) {
+        if (iterable == null)
+            return 0;
+
+        if (iterable instanceof DoubleArray)
+            return ((DoubleArray) iterable).size();
+
+        return JPrimitiveIterator.size(iterable.iterator());
+    }
+
+    /**
+     * Returns an array of the values in the iterable. Null safe.
+     * 
+     * @param iterable the iterable. can be null
+     * @return array of the values in the iterable
+     */
+    public static double[] toArray(DoubleIterable iterable) {
+        if (iterable == null)
+            return new double[0];
+        return JPrimitiveIterator.toArray(iterable.iterator());
+    }
+
+    /**
+     * Returns the value at {@code index} in the iterable.
+     * 
+     * @param iterable the iterable
+     * @param index    the index to get
+     * @return value at {@code index} in the iterable
+     * @throws NullPointerException      if {@code iterable} is null
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public static double get(DoubleIterable iterable, int index) {
+        if (iterable instanceof DoubleArray) {
+            DoubleArray array = (DoubleArray) iterable;
+            Objects.checkIndex(index, array.size());
+            return array.array[array.from + index];
+        }
+        return JPrimitiveIterator.get(iterable.iterator(), index);
+    }
+
+    /**
+     * Returns the first value in the iterable.
+     * 
+     * @param iterable the iterable
+     * @return the first value
+     * @throws IndexOutOfBoundsException if there is no first value
+     */
+    public static double first(DoubleIterable iterable) {
+        return get(iterable, 0);
+    }
+
+    /**
+     * Checks if the iterable is empty.
+     * <p>
+     * A {@code null} iterable returns true.
+     * 
+     * @param iterable the iterable to check
+     * @return true if {@code iterable} is null or empty and false otherwise
+     */
+    public static boolean isEmpty(DoubleIterable iterable) {
+        if (iterable instanceof DoubleArray)
+            return ((DoubleArray) iterable).size() == 0;
+        return iterable == null || !iterable.iterator().hasNext();
+    }
+
+    /**
+     * Returns a string representation of the iterable, in the same format as
+     * {@link JIterable#toString(Iterable)}.
+     * 
+     * @param iterable the iterable
+     * @return string representation of {@code iterable}
+     */
+    public static String toString(DoubleIterable iterable) {
+        return JPrimitiveIterator.toString(iterable == null ? null : iterable.iterator());
+    }
+
+    /**
+     * Returns a primitive iterable over the values of {@code iterable}.
+     * <p>
+     * If {@code iterable} is already a primitive iterable it is returned as
+     * is, otherwise each value is unboxed as it is iterated.
+     * 
+     * @param iterable the iterable. can be null
+     * @return primitive iterable of the values, empty if {@code iterable} is
+     *         null
+     * @see JPrimitiveIterator#unboxDouble(Iterator)
+     */
+    public static DoubleIterable unboxDouble(Iterable<Double> iterable) {
+        if (iterable == null)
+            return emptyDoubleIterable();
+        if (iterable instanceof DoubleIterable)
+            return (DoubleIterable) iterable;
+        return () -> JPrimitiveIterator.unboxDouble(iterable.iterator());
+    }
+
+    private static final class IntArray implements IntIterable {
+        final int[] array;
+        final int from;
+        final int to;
+
+        IntArray(int[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        int size() {
+            return to - from;
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt iterator() {
+            return new JPrimitiveIterator.IntArrayIterator(array, from, to);
+        }
+
+        @Override
+        public Spliterator.OfInt spliterator() {
+            return Spliterators.spliterator(array, from, to, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        }
+    }
+
+    private static final class LongArray implements LongIterable {
+        final long[] array;
+        final int from;
+        final int to;
+
+        LongArray(long[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        int size() {
+            return to - from;
+        }
+
+        @Override
+        public PrimitiveIterator.OfLong iterator() {
+            return new JPrimitiveIterator.LongArrayIterator(array, from, to);
+        }
+
+        @Override
+        public Spliterator.OfLong spliterator() {
+            return Spliterators.spliterator(array, from, to, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        }
+    }
+
+    private static final class DoubleArray implements DoubleIterable {
+        final double[] array;
+        final int from;
+        final int to;
+
+        DoubleArray(double[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        int size() {
+            return to - from;
+        }
+
+        @Override
+        public PrimitiveIterator.OfDouble iterator() {
+            return new JPrimitiveIterator.DoubleArrayIterator(array, from, to);
+        }
+
+        @Override
+        public Spliterator.OfDouble spliterator() {
+            return Spliterators.spliterator(array, from, to, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        }
+    }
+}
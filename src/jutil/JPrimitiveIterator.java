@@ -0,0 +1,719 @@
+package jutil;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Utility class for primitive iterators.
+ * <p>
+ * The methods mirror those of {@link JIterator} for
+ * {@link PrimitiveIterator.OfInt}, {@link PrimitiveIterator.OfLong} and
+ * {@link PrimitiveIterator.OfDouble}, and never box the values. Iterators over
+ * arrays created by this class are sized, so {@code size}, {@code get} and
+ * {@code toArray} on them don't step through the values.
+ */
+public final class JPrimitiveIterator {
+    private static final int[] EMPTY_INTS = {};
+    private static final long[] EMPTY_LONGS = {};
+    private static final double[] EMPTY_DOUBLES = {};
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private JPrimitiveIterator() {
+    }
+
+    /**
+     * Returns an empty {@code int} iterator.
+     * 
+     * @return empty iterator
+     */
+    public static PrimitiveIterator.OfInt emptyIntIterator() {
+        return new IntArrayIterator(EMPTY_INTS, 0, 0);
+    }
+
+    /**
+     * Returns an iterator over the values of {@code array}.
+     * <p>
+     * The array isn't copied, so changes to it are visible to the iterator.
+     * 
+     * @param array the array. can't be null
+     * @return iterator over the array
+     * @throws NullPointerException if {@code array} is null
+     */
+    public static PrimitiveIterator.OfInt of(int[] array) {
+        return new IntArrayIterator(array, 0, array.length);
+    }
+
+    /**
+     * Returns an iterator over the values of {@code array} from index
+     * {@code from}, inclusive, to index {@code to}, exclusive.
+     * 
+     * @param array the array. can't be null
+     * @param from  the first index
+     * @param to    the index after the last
+     * @return iterator over the range of the array
+     * @throws NullPointerException      if {@code array} is null
+     * @throws IndexOutOfBoundsException if the range is invalid
+     */
+    public static PrimitiveIterator.OfInt of(int[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return new IntArrayIterator(array, from, to);
+    }
+
+    /**
+     * Returns the number of values the iterator has. Null safe.
+     * 
+     * @param iterator an iterator. can be null
+     * @return number of values
+     */
+    public static int size(PrimitiveIterator.OfInt iterator) {
+        if (iterator == null)
+            return 0;
+
+        if (iterator instanceof IntArrayIterator) {
+            IntArrayIterator array = (IntArrayIterator) iterator;
+            int size = array.to - array.index;
+            array.index = array.to;
+            return size;
+        }
+
+        int size = 0;
+        while (iterator.hasNext()) {
+            iterator.nextInt();
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns an array of the values in the iterator.
+     * <p>
+     * The values are collected into a growing array without boxing.
+     * 
+     * @param iterator the iterator to convert. can't be null.
+     * @return array of the values in the iterator
+     * @throws NullPointerException if {@code iterator} is null
+     */
+    public static int[] toArray(PrimitiveIterator.OfInt iterator) {
+        Objects.requireNonNull(iterator);
+
+        if (iterator instanceof IntArrayIterator) {
+            IntArrayIterator array = (IntArrayIterator) iterator;
+            int[] values = Arrays.copyOfRange(array.array, array.index, array.to);
+            array.index = array.to;
+            return values;
+        }
+
+        int[] values = new int[10];
+        int size = 0;
+        while (iterator.hasNext()) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, grow(size));
+            values[size++] = iterator.nextInt();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the value at {@code index} in the iterator.
+     * <p>
+     * The iterator is moved past {@code index} as a side effect.
+     * 
+     * @param iterator the iterator
+     * @param index    the index
+     * @return value at the specified index
+     * @throws NullPointerException      if the iterator is null
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public static int get(PrimitiveIterator.OfInt iterator, int index) {
+        Objects.requireNonNull(iterator);
+
+        if (iterator instanceof IntArrayIterator) {
+            IntArrayIterator array = (IntArrayIterator) iterator;
+            if (index < 0 || index >= array.to - array.index) {
+                array.index = array.to;
+                throw new IndexOutOfBoundsException("Item does not exist: " + index);
+            }
+            array.index += index + 1;
+            return array.array[array.index - 1];
+        }
+
+        int i = index;
+        while (iterator.hasNext()) {
+            i--;
+
+            if (i == -1) {
+                return iterator.nextInt();
+            }
+            iterator.nextInt();
+        }
+        throw new IndexOutOfBoundsException("Item does not exist: " + index);
+    }
+
+    /**
+     * Returns the first value in the iterator.
+     * 
+     * @param iterator the iterator
+     * @return the first value
+     * @throws IndexOutOfBoundsException if there is no first value
+     */
+    public static int first(PrimitiveIterator.OfInt iterator) {
+        return get(iterator, 0);
+    }
+
+    /**
+     * Returns a string representation of the iterator, in the same format as
+     * {@link JIterator#toString(java.util.Iterator)}.
+     * 
+     * @param iterator the iterator
+     * @return string representation of {@code iterator}
+     */
+    public static String toString(PrimitiveIterator.OfInt iterator) {
+        if (isEmpty(iterator))
+            return "[]";
+
+        StringBuilder sb = new StringBuilder("[");
+        sb.append(iterator.nextInt());
+        while (iterator.hasNext()) {
+            sb.append(", ").append(iterator.nextInt());
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Returns a primitive iterator over the values of {@code iterator}.
+     * <p>
+     * If {@code iterator} is already a primitive iterator it is returned
+     * as is, otherwise each value is unboxed as it is iterated.
+     * 
+     * @param iterator the iterator. can be null
+     * @return primitive iterator of the values, empty if {@code iterator} is
+     *         null
+     * @throws NullPointerException if a value is null
+     */
+    public static PrimitiveIterator.OfInt unboxInt(Iterator<Integer> iterator) {
+        if (iterator == null)
+            return emptyIntIterator();
+        if (iterator instanceof PrimitiveIterator.OfInt)
+            return (PrimitiveIterator.OfInt) iterator;
+
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * Returns an empty {@code long} iterator.
+     * 
+     * @return empty iterator
+     */
+    public static PrimitiveIterator.OfLong emptyLongIterator() {
+        return new LongArrayIterator(EMPTY_LONGS, 0, 0);
+    }
+
+    /**
+     * Returns an iterator over the values of {@code array}.
+     * <p>
+     * The array isn't copied, so changes to it are visible to the iterator.
+     * 
+     * @param array the array. can't be null
+     * @return iterator over the array
+     * @throws NullPointerException if {@code array} is null
+     */
+    public static PrimitiveIterator.OfLong of(long[] array) {
+        return new LongArrayIterator(array, 0, array.length);
+    }
+
+    /**
+     * Returns an iterator over the values of {@code array} from index
+     * {@code from}, inclusive, to index {@code to}, exclusive.
+     * 
+     * @param array the array. can't be null
+     * @param from  the first index
+     * @param to    the index after the last
+     * @return iterator over the range of the array
+     * @throws NullPointerException      if {@code array} is null
+     * @throws IndexOutOfBoundsException if the range is invalid
+     */
+    public static PrimitiveIterator.OfLong of(long[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return new LongArrayIterator(array, from, to);
+    }
+
+    /**
+     * Returns the number of values the iterator has. Null safe.
+     * 
+     * @param iterator an iterator. can be null
+     * @return number of values
+     */
+    public static int size(PrimitiveIterator.OfLong iterator) {
+        if (iterator == null)
+            return 0;
+
+        if (iterator instanceof LongArrayIterator) {
+            LongArrayIterator array = (LongArrayIterator) iterator;
+            int size = array.to - array.index;
+            array.index = array.to;
+            return size;
+        }
+
+        int size = 0;
+        while (iterator.hasNext()) {
+            iterator.nextLong();
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns an array of the values in the iterator.
+     * <p>
+     * The values are collected into a growing array without boxing.
+     * 
+     * @param iterator the iterator to convert. can't be null.
+     * @return array of the values in the iterator
+     * @throws NullPointerException if {@code iterator} is null
+     */
+    public static long[] toArray(PrimitiveIterator.OfLong iterator) {
+        Objects.requireNonNull(iterator);
+
+        if (iterator instanceof LongArrayIterator) {
+            LongArrayIterator array = (LongArrayIterator) iterator;
+            long[] values = Arrays.copyOfRange(array.array, array.index, array.to);
+            array.index = array.to;
+            return values;
+        }
+
+        long[] values = new long[10];
+        int size = 0;
+        while (iterator.hasNext()) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, grow(size));
+            values[size++] = iterator.nextLong();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the value at {@code index} in the iterator.
+     * <p>
+     * The iterator is moved past {@code index} as a side effect.
+     * 
+     * @param iterator the iterator
+     * @param index    the index
+     * @return value at the specified index
+     * @throws NullPointerException      if the iterator is null
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public static long get(PrimitiveIterator.OfLong iterator, int index) {
+        Objects.requireNonNull(iterator);
+
+        if (iterator instanceof LongArrayIterator) {
+            LongArrayIterator array = (LongArrayIterator) iterator;
+            if (index < 0 || index >= array.to - array.index) {
+                array.index = array.to;
+                throw new IndexOutOfBoundsException("Item does not exist: " + index);
+            }
+            array.index += index + 1;
+            return array.array[array.index - 1];
+        }
+
+        int i = index;
+        while (iterator.hasNext()) {
+            i--;
+
+            if (i == -1) {
+                return iterator.nextLong();
+            }
+            iterator.nextLong();
+        }
+        throw new IndexOutOfBoundsException("Item does not exist: " + index);
+    }
+
+    /**
+     * Returns the first value in the iterator.
+     * 
+     * @param iterator the iterator
+     * @return the first value
+     * @throws IndexOutOfBoundsException if there is no first value
+     */
+    public static long first(PrimitiveIterator.OfLong iterator) {
+        return get(iterator, 0);
+    }
+
+    /**
+     * Returns a string representation of the iterator, in the same format as
+     * {@link JIterator#toString(java.util.Iterator)}.
+     * 
+     * @param iterator the iterator
+     * @return string representation of {@code iterator}
+     */
+    public static String toString(PrimitiveIterator.OfLong iterator) {
+        if (isEmpty(iterator))
+            return "[]";
+
+        StringBuilder sb = new StringBuilder("[");
+        sb.append(iterator.nextLong());
+        while (iterator.hasNext()) {
+            sb.append(", ").append(iterator.nextLong());
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Returns a primitive iterator over the values of {@code iterator}.
+     * <p>
+     * If {@code iterator} is already a primitive iterator it is returned
+     * as is, otherwise each value is unboxed as it is iterated.
+     * 
+     * @param iterator the iterator. can be null
+     * @return primitive iterator of the values, empty if {@code iterator} is
+     *         null
+     * @throws NullPointerException if a value is null
+     */
+    public static PrimitiveIterator.OfLong unboxLong(Iterator<Long> iterator) {
+        if (iterator == null)
+            return emptyLongIterator();
+        if (iterator instanceof PrimitiveIterator.OfLong)
+            return (PrimitiveIterator.OfLong) iterator;
+
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * Returns an empty {@code double} iterator.
+     * 
+     * @return empty iterator
+     */
+    public static PrimitiveIterator.OfDouble emptyDoubleIterator() {
+        return new DoubleArrayIterator(EMPTY_DOUBLES, 0, 0);
+    }
+
+    /**
+     * Returns an iterator over the values of {@code array}.
+     * <p>
+     * The array isn't copied, so changes to it are visible to the iterator.
+     * 
+     * @param array the array. can't be null
+     * @return iterator over the array
+     * @throws NullPointerException if {@code array} is null
+     */
+    public static PrimitiveIterator.OfDouble of(double[] array) {
+        return new DoubleArrayIterator(array, 0, array.length);
+    }
+
+    /**
+     * Returns an iterator over the values of {@code array} from index
+     * {@code from}, inclusive, to index {@code to}, exclusive.
+     * 
+     * @param array the array. can't be null
+     * @param from  the first index
+     * @param to    the index after the last
+     * @return iterator over the range of the array
+     * @throws NullPointerException      if {@code array} is null
+     * @throws IndexOutOfBoundsException if the range is invalid
+     */
+    public static PrimitiveIterator.OfDouble of(double[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return new DoubleArrayIterator(array, from, to);
+    }
+
+    /**
+     * Returns the number of values the iterator has. Null safe.
+     * 
+     * @param iterator an iterator. can be null
+     * @return number of values
+     */
+    public static int size(PrimitiveIterator.OfDouble iterator) {
+        if (iterator == null)
+            return 0;
+
+        if (iterator instanceof DoubleArrayIterator) {
+            DoubleArrayIterator array = (DoubleArrayIterator) iterator;
+            int size = array.to - array.index;
+            array.index = array.to;
+            return size;
+        }
+
+        int size = 0;
+        while (iterator.hasNext()) {
+            iterator.nextDouble();
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns an array of the values in the iterator.
+     * <p>
+     * The values are collected into a growing array without boxing.
+     * 
+     * @param iterator the iterator to convert. can't be null.
+     * @return array of the values in the iterator
+     * @throws NullPointerException if {@code iterator} is null
+     */
+    public static double[] toArray(PrimitiveIterator.OfDouble iterator) {
+        Objects.requireNonNull(iterator);
+
+        if (iterator instanceof DoubleArrayIterator) {
+            DoubleArrayIterator array = (DoubleArrayIterator) iterator;
+            double[] values = Arrays.copyOfRange(array.array, array.index, array.to);
+            array.index = array.to;
+            return values;
+        }
+
+        double[] values = new double[10];
+        int size = 0;
+        while (iterator.hasNext()) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, grow(size));
+            values[size++] = iterator.nextDouble();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the value at {@code index} in the iterator.
+     * <p>
+     * The iterator is moved past {@code index} as a side effect.
+     * 
+     * @param iterator the iterator
+     * @param index    the index
+     * @return value at the specified index
+     * @throws NullPointerException      if the iterator is null
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public static double get(PrimitiveIterator.OfDouble iterator, int index) {
+        Objects.requireNonNull(iterator);
+
+        if (iterator instanceof DoubleArrayIterator) {
+            DoubleArrayIterator array = (DoubleArrayIterator) iterator;
+            if (index < 0 || index >= array.to - array.index) {
+                array.index = array.to;
+                throw new IndexOutOfBoundsException("Item does not exist: " + index);
+            }
+            array.index += index + 1;
+            return array.array[array.index - 1];
+        }
+
+        int i = index;
+        while (iterator.hasNext()) {
+            i--;
+
+            if (i == -1) {
+                return iterator.nextDouble();
+            }
+            iterator.nextDouble();
+        }
+        throw new IndexOutOfBoundsException("Item does not exist: " + index);
+    }
+
+    /**
+     * Returns the first value in the iterator.
+     * 
+     * @param iterator the iterator
+     * @return the first value
+     * @throws IndexOutOfBoundsException if there is no first value
+     */
+    public static double first(PrimitiveIterator.OfDouble iterator) {
+        return get(iterator, 0);
+    }
+
+    /**
+     * Returns a string representation of the iterator, in the same format as
+     * {@link JIterator#toString(java.util.Iterator)}.
+     * 
+     * @param iterator the iterator
+     * @return string representation of {@code iterator}
+     */
+    public static String toString(PrimitiveIterator.OfDouble iterator) {
+        if (isEmpty(iterator))
+            return "[]";
+
+        StringBuilder sb = new StringBuilder("[");
+        sb.append(iterator.nextDouble());
+        while (iterator.hasNext()) {
+            sb.append(", ").append(iterator.nextDouble());
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Returns a primitive iterator over the values of {@code iterator}.
+     * <p>
+     * If {@code iterator} is already a primitive iterator it is returned
+     * as is, otherwise each value is unboxed as it is iterated.
+     * 
+     * @param iterator the iterator. can be null
+     * @return primitive iterator of the values, empty if {@code iterator} is
+     *         null
+     * @throws NullPointerException if a value is null
+     */
+    public static PrimitiveIterator.OfDouble unboxDouble(Iterator<Double> iterator) {
+        if (iterator == null)
+            return emptyDoubleIterator();
+        if (iterator instanceof PrimitiveIterator.OfDouble)
+            return (PrimitiveIterator.OfDouble) iterator;
+
+        return new PrimitiveIterator.OfDouble() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * Checks if the iterator is empty.
+     * <p>
+     * A {@code null} iterator returns true.
+     * 
+     * @param iterator the iterator to check
+     * @return true if the iterator is empty or null and false otherwise
+     */
+    public static boolean isEmpty(PrimitiveIterator<?, ?> iterator) {
+        return iterator == null || !iterator.hasNext();
+    }
+
+    private static int grow(int size) {
+        if (size >= MAX_ARRAY_SIZE)
+            throw new OutOfMemoryError("Too many items: " + size);
+        return (int) Math.min(MAX_ARRAY_SIZE, 2L * size);
+    }
+
+    static final class IntArrayIterator implements PrimitiveIterator.OfInt {
+        final int[] array;
+        final int to;
+        int index;
+
+        IntArrayIterator(int[] array, int from, int to) {
+            this.array = array;
+            this.index = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < to;
+        }
+
+        @Override
+        public int nextInt() {
+            if (index >= to)
+                throw new NoSuchElementException();
+            return array[index++];
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+            int[] a = array;
+            int end = to;
+            for (int i = index; i < end; i++) {
+                action.accept(a[i]);
+            }
+            index = end;
+        }
+    }
+
+    static final class LongArrayIterator implements PrimitiveIterator.OfLong {
+        final long[] array;
+        final int to;
+        int index;
+
+        LongArrayIterator(long[] array, int from, int to) {
+            this.array = array;
+            this.index = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < to;
+        }
+
+        @Override
+        public long nextLong() {
+            if (index >= to)
+                throw new NoSuchElementException();
+            return array[index++];
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+            long[] a = array;
+            int end = to;
+            for (int i = index; i < end; i++) {
+                action.accept(a[i]);
+            }
+            index = end;
+        }
+    }
+
+    static final class DoubleArrayIterator implements PrimitiveIterator.OfDouble {
+        final double[] array;
+        final int to;
+        int index;
+
+        DoubleArrayIterator(double[] array, int from, int to) {
+            this.array = array;
+            this.index = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < to;
+        }
+
+        @Override
+        public double nextDouble() {
+            if (index >= to)
+                throw new NoSuchElementException();
+            return array[index++];
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            double[] a = array;
+            int end = to;
+            for (int i = index; i < end; i++) {
+                action.accept(a[i]);
+            }
+            index = end;
+        }
+    }
+}
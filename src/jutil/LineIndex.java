@@ -0,0 +1,427 @@
+package jutil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Index of the byte offsets at which the lines of a file start.
+ * <p>
+ * With the index a line can be read by seeking straight to it instead of
+ * scanning the file. Lines are split the same way as
+ * {@link JFiles#readLines(File)}, so line {@code n} of the index is element
+ * {@code n} of that list. The file is expected to be UTF-8 or another ASCII
+ * compatible encoding.
+ * <p>
+ * The index is persisted next to the file in a sidecar file with the
+ * {@code .lidx} suffix, with the offsets delta-encoded as variable length
+ * integers. The sidecar records the size and modification time of the file.
+ * When they change the index is rebuilt, or only extended if the file grew
+ * and its previous end is unchanged.
+ * <p>
+ * An index is a snapshot. Use {@link #isCurrent()} to check whether the file
+ * changed since and {@link #of(File)} to get an up to date index.
+ */
+public final class LineIndex {
+    private static final String SUFFIX = ".lidx";
+    private static final int MAGIC = 0x4C494458;
+    private static final int VERSION = 1;
+    private static final int TAIL_SIZE = 1 << 12;
+    private static final int CACHE_SIZE = 16;
+
+    /** recently used indexes, by absolute path */
+    private static final LinkedHashMap<String, LineIndex> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final File file;
+    private final long size;
+    private final long modified;
+    private final LongPages offsets;
+
+    private LineIndex(File file, long size, long modified, LongPages offsets) {
+        this.file = file;
+        this.size = size;
+        this.modified = modified;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Returns an up to date index of {@code file}.
+     * <p>
+     * The sidecar file is loaded if it matches {@code file}, extended if the
+     * file only grew and rebuilt otherwise. An updated index is written back to
+     * the sidecar. If the sidecar can't be written the index is still returned.
+     * <p>
+     * The last few indexes are also kept in memory and returned as long as
+     * their file keeps its size and modification time, so repeated calls don't
+     * decode the sidecar again.
+     *
+     * @param file the file to index
+     * @return the index of {@code file}
+     * @throws FileNotFoundException if the file isn't found
+     * @throws IOException           if the file couldn't be read
+     */
+    public static LineIndex of(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        LineIndex cached;
+        synchronized (CACHE) {
+            cached = CACHE.get(key);
+        }
+        if (cached != null && cached.isCurrent())
+            return cached;
+
+        LineIndex index = load(file);
+        synchronized (CACHE) {
+            CACHE.put(key, index);
+            if (CACHE.size() > CACHE_SIZE) {
+                Iterator<LineIndex> it = CACHE.values().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+        return index;
+    }
+
+    private static LineIndex load(File file) throws IOException {
+        File sidecar = sidecar(file);
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            long size = channel.size();
+            long modified = file.lastModified();
+
+            Header header = null;
+            LongPages offsets = null;
+            if (sidecar.isFile()) {
+                try (DataInputStream sidecarIn = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(sidecar)))) {
+                    header = Header.read(sidecarIn);
+                    if (header != null)
+                        offsets = readOffsets(sidecarIn, header);
+                } catch (IOException e) {
+                    // a truncated or corrupt sidecar is rebuilt like a stale one
+                    header = null;
+                }
+            }
+
+            if (header != null && header.size == size && header.modified == modified)
+                return new LineIndex(file, size, modified, offsets);
+
+            if (header != null && header.size < size && header.tailChecksum == tailChecksum(channel, header.size)) {
+                extend(channel, offsets);
+            } else {
+                offsets = new LongPages();
+                build(channel, offsets, 0, size);
+            }
+
+            LineIndex index = new LineIndex(file, size, modified, offsets);
+            index.save(sidecar, tailChecksum(channel, size));
+            return index;
+        }
+    }
+
+    /**
+     * Returns the number of lines in the file.
+     *
+     * @return number of lines
+     */
+    public long lineCount() {
+        return offsets.size();
+    }
+
+    /**
+     * Returns the byte offset at which line {@code line} starts.
+     *
+     * @param line the line number, starting at {@code 0}
+     * @return the offset of the line
+     * @throws IndexOutOfBoundsException if the line doesn't exist
+     */
+    public long offset(long line) {
+        checkLine(line);
+        return offsets.get(line);
+    }
+
+    /**
+     * Reads line {@code line} of the file.
+     *
+     * @param line the line number, starting at {@code 0}
+     * @return the line without its line separator
+     * @throws IndexOutOfBoundsException if the line doesn't exist
+     * @throws IOException               if the file couldn't be read
+     */
+    public String readLine(long line) throws IOException {
+        return readLines(line, line + 1).get(0);
+    }
+
+    /**
+     * Reads the lines from {@code from} (inclusive) to {@code to} (exclusive).
+     *
+     * @param from the first line to read
+     * @param to   the line after the last line to read
+     * @return list of the lines without their line separators
+     * @throws IndexOutOfBoundsException if {@code from} or {@code to} is invalid
+     * @throws IOException               if the file couldn't be read
+     */
+    public List<String> readLines(long from, long to) throws IOException {
+        if (from < 0 || to > lineCount() || from > to)
+            throw new IndexOutOfBoundsException("Lines out of range: [" + from + ", " + to + ")");
+        if (from == to)
+            return new ArrayList<>();
+
+        long start = offsets.get(from);
+        long end = to < lineCount() ? offsets.get(to) : size;
+        if (end - start > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Lines are too large to read at once: [" + from + ", " + to + ")");
+
+        ByteBuffer buf = ByteBuffer.allocate((int) (end - start));
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, start + buf.position()) < 0)
+                    break;
+            }
+        }
+        buf.flip();
+
+        List<String> lines = new ArrayList<>((int) Math.min(to - from, Integer.MAX_VALUE - 8));
+        JFiles.splitLines(Charset.defaultCharset().decode(buf), lines);
+        return lines;
+    }
+
+    /**
+     * Checks if the file still has the size and modification time it had when
+     * it was indexed.
+     *
+     * @return true if the index is current and false otherwise
+     */
+    public boolean isCurrent() {
+        return file.length() == size && file.lastModified() == modified;
+    }
+
+    private void checkLine(long line) {
+        if (line < 0 || line >= lineCount())
+            throw new IndexOutOfBoundsException("Line does not exist: " + line);
+    }
+
+    private static File sidecar(File file) {
+        return new File(file.getPath() + SUFFIX);
+    }
+
+    /*
+     * Rescans from the start of the last indexed line, since it may continue
+     * past the old end of the file.
+     */
+    private static void extend(FileChannel channel, LongPages offsets) throws IOException {
+        long from = 0;
+        if (offsets.size() > 0) {
+            from = offsets.get(offsets.size() - 1);
+            offsets.truncate(offsets.size() - 1);
+        }
+        build(channel, offsets, from, channel.size());
+    }
+
+    private static void build(FileChannel channel, LongPages offsets, long from, long to) throws IOException {
+        JFiles.scan(channel, from, to, new Builder(offsets, from));
+    }
+
+    private static long tailChecksum(FileChannel channel, long end) throws IOException {
+        long start = Math.max(0, end - TAIL_SIZE);
+        ByteBuffer buf = ByteBuffer.allocate((int) (end - start));
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, start + buf.position()) < 0)
+                return -1;
+        }
+        buf.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(buf);
+        return crc.getValue();
+    }
+
+    private void save(File sidecar, long tailChecksum) {
+        Path tmp = null;
+        try {
+            // a unique temporary file, so concurrent saves of the same index don't collide
+            tmp = Files.createTempFile(sidecar.getAbsoluteFile().getParentFile().toPath(), sidecar.getName(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(size);
+                out.writeLong(modified);
+                out.writeLong(tailChecksum);
+                out.writeLong(offsets.size());
+
+                long previous = 0;
+                for (long i = 0; i < offsets.size(); i++) {
+                    long offset = offsets.get(i);
+                    writeVarLong(out, offset - previous);
+                    previous = offset;
+                }
+            }
+            try {
+                Files.move(tmp, sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // the sidecar is only a cache, the index itself is still valid
+            if (tmp != null)
+                tmp.toFile().delete();
+        }
+    }
+
+    /*
+     * Every line but the first starts after the previous one and before the
+     * end of the file, anything else is a corrupt sidecar.
+     */
+    private static LongPages readOffsets(DataInputStream in, Header header) throws IOException {
+        if (header.count < 0 || header.count > header.size || (header.count == 0) != (header.size == 0))
+            throw new IOException("Malformed line index");
+
+        LongPages offsets = new LongPages();
+        long offset = 0;
+        for (long i = 0; i < header.count; i++) {
+            long delta = readVarLong(in);
+            if ((delta == 0) != (i == 0) || delta >= header.size - offset)
+                throw new IOException("Malformed line index");
+            offset += delta;
+            offsets.add(offset);
+        }
+        return offsets;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IOException("Malformed line index");
+    }
+
+    /**
+     * The fixed part of the sidecar file.
+     */
+    private static final class Header {
+        final long size;
+        final long modified;
+        final long tailChecksum;
+        final long count;
+
+        private Header(long size, long modified, long tailChecksum, long count) {
+            this.size = size;
+            this.modified = modified;
+            this.tailChecksum = tailChecksum;
+            this.count = count;
+        }
+
+        static Header read(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return null;
+            return new Header(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+        }
+    }
+
+    /**
+     * Records the offset of every byte that starts a line.
+     */
+    private static final class Builder extends ByteCounter {
+        private final LongPages offsets;
+        private long position;
+        private boolean afterCR;
+        private boolean atLineStart = true;
+
+        Builder(LongPages offsets, long position) {
+            this.offsets = offsets;
+            this.position = position;
+        }
+
+        @Override
+        void update(ByteBuffer buf) {
+            for (int i = buf.position(), limit = buf.limit(); i < limit; i++, position++) {
+                byte b = buf.get(i);
+                if (b == '\n' && afterCR) {
+                    afterCR = false;
+                    continue;
+                }
+                if (atLineStart) {
+                    offsets.add(position);
+                    atLineStart = false;
+                }
+                afterCR = b == '\r';
+                if (b == '\n' || b == '\r') {
+                    atLineStart = true;
+                } else if (b < 0) {
+                    int cp = decode(b);
+                    atLineStart = cp >= 0 && isLineSeparator(cp);
+                }
+            }
+            buf.position(buf.limit());
+        }
+
+        @Override
+        long count() {
+            return offsets.size();
+        }
+    }
+
+    /**
+     * Growable list of longs stored in fixed size pages, so it isn't limited
+     * to {@code Integer.MAX_VALUE} elements and never copies its contents.
+     */
+    private static final class LongPages {
+        private static final int PAGE_BITS = 16;
+        private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+        private long[][] pages = new long[1][];
+        private long size;
+
+        void add(long value) {
+            int page = (int) (size >>> PAGE_BITS);
+            if (page == pages.length)
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            if (pages[page] == null)
+                pages[page] = new long[PAGE_SIZE];
+            pages[page][(int) (size & (PAGE_SIZE - 1))] = value;
+            size++;
+        }
+
+        long get(long index) {
+            return pages[(int) (index >>> PAGE_BITS)][(int) (index & (PAGE_SIZE - 1))];
+        }
+
+        long size() {
+            return size;
+        }
+
+        void truncate(long newSize) {
+            size = newSize;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jutil;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A line of a file that matched a search.
+ *
+ * @see JFiles#grep(Path, String, String)
+ */
+public final class LineMatch {
+    private final Path path;
+    private final long lineNumber;
+    private final String line;
+
+    LineMatch(Path path, long lineNumber, String line) {
+        this.path = path;
+        this.lineNumber = lineNumber;
+        this.line = line;
+    }
+
+    /**
+     * Returns the file the line is in.
+     *
+     * @return path of the file
+     */
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Returns the number of the line in the file, starting at {@code 0}, as used
+     * by {@link JFiles#readLine(java.io.File, long)}.
+     *
+     * @return the line number
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the line without its line separator.
+     *
+     * @return the line
+     */
+    public String line() {
+        return line;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LineMatch))
+            return false;
+        LineMatch other = (LineMatch) o;
+        return path.equals(other.path) && lineNumber == other.lineNumber && line.equals(other.line);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, lineNumber, line);
+    }
+
+    @Override
+    public String toString() {
+        return path + ":" + lineNumber + ":" + line;
+    }
+}
@@ -0,0 +1,38 @@
+package jutil;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Iterable of {@code long} values.
+ * <p>
+ * The values can be iterated without boxing through
+ * {@link PrimitiveIterator.OfLong#nextLong()}, while the iterable can still be
+ * used wherever an {@code Iterable<Long>} is expected.
+ *
+ * @see JPrimitiveIterable
+ */
+@FunctionalInterface
+public interface LongIterable extends Iterable<Long> {
+
+    /**
+     * Returns an iterator over the values.
+     * 
+     * @return a primitive iterator
+     */
+    @Override
+    PrimitiveIterator.OfLong iterator();
+
+    /**
+     * Returns a spliterator over the values.
+     * <p>
+     * The default implementation has an unknown size.
+     * 
+     * @return a primitive spliterator
+     */
+    @Override
+    default Spliterator.OfLong spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+    }
+}
@@ -0,0 +1,109 @@
+package jutil;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterable that caches the items of an iterator as they are first read.
+ * <p>
+ * Items are pulled from the source iterator only when an index past the
+ * cached ones is requested, and kept in a segmented buffer that grows without
+ * copying. This gives amortized constant time {@link #get(int)} and lets a
+ * single use iterator be iterated any number of times. Memory grows only as
+ * far as the highest index read so far, and {@link #size()} reads the whole
+ * source.
+ * <p>
+ * This class isn't thread safe.
+ *
+ * @param <T> the item type
+ * @see JIterable#memoize(Iterable)
+ * @see JIterator#memoize(Iterator)
+ */
+public final class MemoizedIterable<T> implements Iterable<T> {
+    private final ChunkedBuffer<T> buffer = new ChunkedBuffer<>();
+    private Iterator<? extends T> source;
+
+    MemoizedIterable(Iterator<? extends T> source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns the item at {@code index}, reading the source up to it if
+     * needed.
+     * 
+     * @param index the index
+     * @return item at {@code index}
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public T get(int index) {
+        if (index < 0 || !fill(index))
+            throw new IndexOutOfBoundsException("Item does not exist: " + index);
+        return buffer.get(index);
+    }
+
+    /**
+     * Returns the number of items, reading the rest of the source.
+     * 
+     * @return number of items
+     */
+    public int size() {
+        fill(Integer.MAX_VALUE);
+        return buffer.size();
+    }
+
+    /**
+     * Returns the number of items read from the source so far.
+     * 
+     * @return number of cached items
+     */
+    public int cachedSize() {
+        return buffer.size();
+    }
+
+    /**
+     * Returns an iterator over the items. The iterator reads from the cache
+     * and pulls from the source once it reaches the end of the cache.
+     * 
+     * @return iterator of the items
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return fill(index);
+            }
+
+            @Override
+            public T next() {
+                if (!fill(index))
+                    throw new NoSuchElementException();
+                return buffer.get(index++);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return JIterable.toString(this);
+    }
+
+    /*
+     * Reads the source until the item at index is cached. Returns whether it
+     * exists.
+     */
+    private boolean fill(int index) {
+        while (index >= buffer.size()) {
+            if (source == null)
+                return false;
+            if (!source.hasNext()) {
+                source = null;
+                return false;
+            }
+            buffer.add(source.next());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+package jutil;
+
+/**
+ * Montgomery arithmetic for a fixed odd modulus.
+ * <p>
+ * A value {@code a} is represented by {@code a * R mod n} with
+ * {@code R = 2^64}. In that form a modular product needs two 64 bit
+ * multiplications and no division, which makes repeated multiplication by
+ * the same modulus, as in {@link #modpow(long, long)}, much faster than
+ * reducing each product by division. The constants are computed once by the
+ * constructor.
+ * <p>
+ * Methods named {@code multiply}, {@code square} and {@code pow} take and
+ * return values in Montgomery form, in {@code [0, n)}. Use
+ * {@link #toMontgomery(long)} and {@link #fromMontgomery(long)} to convert.
+ * Instances are immutable and thread safe.
+ *
+ * @see JModular
+ */
+public final class Montgomery {
+    private final long n;
+    /** n^-1 mod 2^64 */
+    private final long inverse;
+    /** R^2 mod n */
+    private final long r2;
+    private final long one;
+
+    /**
+     * Creates the constants for the odd modulus {@code n}.
+     * 
+     * @param n the modulus
+     * @throws IllegalArgumentException if {@code n} is even or not positive
+     */
+    public Montgomery(long n) {
+        if (n <= 0 || (n & 1) == 0)
+            throw new IllegalArgumentException("Modulus must be odd and positive: " + n);
+        this.n = n;
+
+        // Newton's iteration doubles the correct low bits, n * n == 1 mod 8
+        long x = n;
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - n * x;
+        }
+        this.inverse = x;
+
+        long r1 = Long.remainderUnsigned(-n, n);
+        this.one = r1;
+        this.r2 = JModular.reduce(r1, r1, n);
+    }
+
+    /**
+     * Returns the modulus.
+     * 
+     * @return the modulus
+     */
+    public long modulus() {
+        return n;
+    }
+
+    /**
+     * Returns {@code 1} in Montgomery form.
+     * 
+     * @return R mod n
+     */
+    public long one() {
+        return one;
+    }
+
+    /**
+     * Converts {@code a} to Montgomery form.
+     * 
+     * @param a any value
+     * @return a * R mod n
+     */
+    public long toMontgomery(long a) {
+        return multiply(Math.floorMod(a, n), r2);
+    }
+
+    /**
+     * Converts {@code x} from Montgomery form.
+     * 
+     * @param x a value in Montgomery form
+     * @return x * R^-1 mod n
+     */
+    public long fromMontgomery(long x) {
+        return redc(0, x);
+    }
+
+    /**
+     * Multiplies two values in Montgomery form.
+     * 
+     * @param x a value in Montgomery form
+     * @param y a value in Montgomery form
+     * @return the product in Montgomery form
+     */
+    public long multiply(long x, long y) {
+        return redc(Math.multiplyHigh(x, y), x * y);
+    }
+
+    /**
+     * Squares a value in Montgomery form.
+     * 
+     * @param x a value in Montgomery form
+     * @return the square in Montgomery form
+     */
+    public long square(long x) {
+        return multiply(x, x);
+    }
+
+    /**
+     * Raises a value in Montgomery form to {@code exponent}.
+     * 
+     * @param x        a value in Montgomery form
+     * @param exponent the exponent, not negative
+     * @return x^exponent in Montgomery form
+     * @throws IllegalArgumentException if {@code exponent} is negative
+     */
+    public long pow(long x, long exponent) {
+        if (exponent < 0)
+            throw new IllegalArgumentException("Exponent can't be negative");
+
+        long result = one;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0)
+                result = multiply(result, x);
+            exponent >>= 1;
+            x = multiply(x, x);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code base^exponent mod n} for values in normal form.
+     * 
+     * @param base     any value
+     * @param exponent the exponent, not negative
+     * @return base^exponent mod n
+     * @throws IllegalArgumentException if {@code exponent} is negative
+     */
+    public long modpow(long base, long exponent) {
+        return fromMontgomery(pow(toMontgomery(base), exponent));
+    }
+
+    /*
+     * Returns (hi * 2^64 + lo) * R^-1 mod n for hi < n. Subtracting m * n,
+     * whose low half equals lo, leaves an exact multiple of 2^64.
+     */
+    private long redc(long hi, long lo) {
+        long m = lo * inverse;
+        long mnHi = Math.multiplyHigh(m, n) + (m >> 63 & n);
+        long t = hi - mnHi;
+        return t < 0 ? t + n : t;
+    }
+}
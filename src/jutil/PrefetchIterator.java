@@ -0,0 +1,190 @@
+package jutil;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Iterator that reads ahead of its consumer on another thread.
+ * <p>
+ * A producer task running on an {@link Executor} moves items from the source
+ * iterator into a bounded ring of {@code depth} slots, while the consumer takes
+ * them from the other end, so a slow source and a slow consumer overlap. The
+ * ring has a single producer and a single consumer and needs no locks: each
+ * side parks only when the ring is empty or full and is unparked by the other.
+ * <p>
+ * An exception thrown by the source is rethrown by {@link #hasNext()} or
+ * {@link #next()} once the items read before it are consumed. {@link #close()}
+ * stops the producer, interrupting it if it is blocked in the source, and
+ * makes the iterator empty. It may be called from any thread. An interrupt of
+ * the consumer while it waits closes the iterator and throws a
+ * {@link CancellationException}.
+ * <p>
+ * The executor must run the producer on another thread. An executor that runs
+ * it on the calling thread, such as {@code Runnable::run}, would block on the
+ * full ring before the consumer could start, so it is rejected.
+ * <p>
+ * The iterator must be used by one consumer thread at a time.
+ *
+ * @param <T> the item type
+ * @see JIterator#prefetch(Iterator, int, Executor)
+ */
+public final class PrefetchIterator<T> implements Iterator<T>, AutoCloseable {
+    private final Object[] ring;
+    private final FutureTask<Void> producer;
+
+    private volatile long head;
+    private volatile long tail;
+    private volatile boolean done;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private volatile Thread waitingConsumer;
+    private volatile Thread waitingProducer;
+    private volatile Thread creator;
+    private volatile boolean ranOnCreator;
+
+    PrefetchIterator(Iterator<? extends T> source, int depth, Executor executor) {
+        this.ring = new Object[depth];
+        this.creator = Thread.currentThread();
+        this.producer = new FutureTask<>(() -> {
+            if (Thread.currentThread() == creator) {
+                ranOnCreator = true;
+                return null;
+            }
+            produce(source);
+            return null;
+        });
+        executor.execute(producer);
+        creator = null;
+        if (ranOnCreator)
+            throw new IllegalArgumentException("Executor must run the producer on another thread");
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed)
+            return false;
+        if (head != tail)
+            return true;
+
+        waitingConsumer = Thread.currentThread();
+        try {
+            while (head == tail) {
+                if (closed)
+                    return false;
+                if (done) {
+                    // items published before done was set are visible now
+                    if (head != tail)
+                        break;
+                    rethrow();
+                    return false;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    close();
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted while waiting for an item");
+                }
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        long h = head;
+        int slot = (int) (h % ring.length);
+        @SuppressWarnings("unchecked")
+        T item = (T) ring[slot];
+        ring[slot] = null;
+        head = h + 1;
+
+        Thread p = waitingProducer;
+        if (p != null)
+            LockSupport.unpark(p);
+        return item;
+    }
+
+    /**
+     * Stops reading ahead and discards the items read but not consumed. Further
+     * calls to {@link #hasNext()} return false.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        producer.cancel(true);
+        wakeConsumer();
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = null;
+        }
+    }
+
+    private void produce(Iterator<? extends T> source) {
+        try {
+            while (!closed && source.hasNext()) {
+                T item = source.next();
+                if (!awaitSpace())
+                    return;
+
+                long t = tail;
+                ring[(int) (t % ring.length)] = item;
+                tail = t + 1;
+                wakeConsumer();
+            }
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            done = true;
+            wakeConsumer();
+        }
+    }
+
+    /*
+     * Waits until the ring has a free slot. Returns false if the iterator was
+     * closed meanwhile.
+     */
+    private boolean awaitSpace() {
+        if (tail - head < ring.length)
+            return !closed;
+
+        waitingProducer = Thread.currentThread();
+        try {
+            while (tail - head >= ring.length) {
+                if (closed || Thread.currentThread().isInterrupted())
+                    return false;
+                LockSupport.park(this);
+            }
+        } finally {
+            waitingProducer = null;
+        }
+        return !closed;
+    }
+
+    private void wakeConsumer() {
+        Thread c = waitingConsumer;
+        if (c != null)
+            LockSupport.unpark(c);
+    }
+
+    private void rethrow() {
+        Throwable e = failure;
+        if (e == null)
+            return;
+        failure = null;
+        if (e instanceof RuntimeException)
+            throw (RuntimeException) e;
+        if (e instanceof Error)
+            throw (Error) e;
+        throw new IllegalStateException(e);
+    }
+}
@@ -0,0 +1,120 @@
+package jutil;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Source of items that many threads drain together, each item going to
+ * exactly one of them.
+ * <p>
+ * Consumers claim the items in batches of up to {@code batchSize} and process
+ * a claimed batch without any synchronization, so the threads contend only
+ * once per batch instead of once per item. Over a {@link java.util.RandomAccess}
+ * List a batch is claimed with a single atomic add on a shared index and no
+ * lock at all. Over an iterator a batch is copied out under a lock that is
+ * released before the items are processed.
+ * <p>
+ * Every item is delivered exactly once in total. If the action throws, the
+ * exception is rethrown to its caller and the items of the batch after the
+ * failed one aren't delivered to anyone.
+ *
+ * @param <T> the item type
+ * @see JIterator#shared(Iterator, int)
+ * @see JIterable#shared(Iterable, int)
+ */
+public final class SharedIterator<T> {
+    private final int batchSize;
+
+    private final List<? extends T> list;
+    private final long size;
+    private final AtomicLong index = new AtomicLong();
+
+    private final Iterator<? extends T> iterator;
+    private final Object lock = new Object();
+    private boolean exhausted;
+
+    SharedIterator(List<? extends T> list, int batchSize) {
+        this.batchSize = batchSize;
+        this.list = list;
+        this.size = list.size();
+        this.iterator = null;
+    }
+
+    SharedIterator(Iterator<? extends T> iterator, int batchSize) {
+        this.batchSize = batchSize;
+        this.list = null;
+        this.size = 0;
+        this.iterator = iterator;
+    }
+
+    /**
+     * Returns the maximum number of items claimed at once.
+     * 
+     * @return the batch size
+     */
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Claims the next batch of items and performs {@code action} on each of
+     * them in order.
+     * 
+     * @param action the action to perform. can't be null
+     * @return the number of items in the batch, {@code 0} once there are no
+     *         items left
+     * @throws NullPointerException if {@code action} is null
+     */
+    public int nextBatch(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+
+        if (list != null) {
+            long from = index.getAndAdd(batchSize);
+            if (from >= size)
+                return 0;
+            int start = (int) from;
+            int end = (int) Math.min(size, from + batchSize);
+            for (int i = start; i < end; i++) {
+                action.accept(list.get(i));
+            }
+            return end - start;
+        }
+
+        Object[] batch = new Object[batchSize];
+        int n = 0;
+        synchronized (lock) {
+            if (exhausted)
+                return 0;
+            while (n < batch.length && iterator.hasNext()) {
+                batch[n++] = iterator.next();
+            }
+            if (n < batch.length)
+                exhausted = true;
+        }
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) batch[i];
+            action.accept(item);
+        }
+        return n;
+    }
+
+    /**
+     * Performs {@code action} on each item this thread claims until no items
+     * are left.
+     * 
+     * @param action the action to perform. can't be null
+     * @return the number of items this thread processed
+     */
+    public long forEachRemaining(Consumer<? super T> action) {
+        long count = 0;
+        int n;
+        while ((n = nextBatch(action)) > 0) {
+            count += n;
+        }
+        return count;
+    }
+}
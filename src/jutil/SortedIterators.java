@@ -0,0 +1,203 @@
+package jutil;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterators over sorted iterators.
+ * <p>
+ * All the sources must be sorted by the same comparator. Each iterator holds
+ * only the current item of each source, so memory is linear in the number of
+ * sources and independent of their length.
+ */
+final class SortedIterators {
+    private SortedIterators() {
+    }
+
+    /**
+     * Merges k sorted iterators with a binary heap of their current items.
+     * Equal items are returned in the order of their sources.
+     */
+    static final class Merge<T> implements Iterator<T> {
+        private final Comparator<? super T> comparator;
+        private final Iterator<? extends T>[] sources;
+        private final Object[] heads;
+        private final int[] heap;
+        private int size;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Merge(Comparator<? super T> comparator, List<? extends Iterator<? extends T>> sources) {
+            this.comparator = comparator;
+            this.sources = sources.toArray(new Iterator[0]);
+            this.heads = new Object[this.sources.length];
+            this.heap = new int[this.sources.length];
+
+            for (int i = 0; i < this.sources.length; i++) {
+                if (this.sources[i].hasNext()) {
+                    heads[i] = this.sources[i].next();
+                    heap[size++] = i;
+                }
+            }
+            for (int i = (size >>> 1) - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public T next() {
+            if (size == 0)
+                throw new NoSuchElementException();
+
+            int source = heap[0];
+            @SuppressWarnings("unchecked")
+            T item = (T) heads[source];
+            if (sources[source].hasNext()) {
+                heads[source] = sources[source].next();
+            } else {
+                heads[source] = null;
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+            return item;
+        }
+
+        private void siftDown(int i) {
+            int source = heap[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && less(heap[right], heap[child]))
+                    child = right;
+                if (!less(heap[child], source))
+                    break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = source;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean less(int a, int b) {
+            int c = comparator.compare((T) heads[a], (T) heads[b]);
+            return c < 0 || c == 0 && a < b;
+        }
+    }
+
+    /**
+     * Collapses runs of equal items into their first item.
+     */
+    static final class Distinct<T> implements Iterator<T> {
+        private final Comparator<? super T> comparator;
+        private final Iterator<? extends T> source;
+        private T previous;
+        private boolean started;
+        private T next;
+        private boolean ready;
+
+        Distinct(Comparator<? super T> comparator, Iterator<? extends T> source) {
+            this.comparator = comparator;
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (ready)
+                return true;
+            while (source.hasNext()) {
+                T item = source.next();
+                if (!started || comparator.compare(previous, item) != 0) {
+                    started = true;
+                    previous = item;
+                    next = item;
+                    ready = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            ready = false;
+            T item = next;
+            next = null;
+            return item;
+        }
+    }
+
+    /**
+     * Returns the distinct items of the first source that are in the second,
+     * or that aren't in it if {@code keep} is false.
+     */
+    static final class Intersect<T> implements Iterator<T> {
+        private final Comparator<? super T> comparator;
+        private final Iterator<? extends T> first;
+        private final Iterator<? extends T> second;
+        private final boolean keep;
+        private T other;
+        private boolean hasOther;
+        private T next;
+        private boolean ready;
+
+        Intersect(Comparator<? super T> comparator, Iterator<? extends T> first, Iterator<? extends T> second,
+                boolean keep) {
+            this.comparator = comparator;
+            this.first = new Distinct<>(comparator, first);
+            this.second = second;
+            this.keep = keep;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (ready)
+                return true;
+            while (first.hasNext()) {
+                T item = first.next();
+                int c = -1;
+                while (true) {
+                    if (!hasOther) {
+                        if (!second.hasNext())
+                            break;
+                        other = second.next();
+                        hasOther = true;
+                    }
+                    c = comparator.compare(item, other);
+                    if (c <= 0)
+                        break;
+                    hasOther = false;
+                }
+                if (!hasOther)
+                    c = -1;
+
+                if ((c == 0) == keep) {
+                    next = item;
+                    ready = true;
+                    return true;
+                }
+                if (keep && !hasOther)
+                    return false;
+            }
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            ready = false;
+            T item = next;
+            next = null;
+            return item;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package jutil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads lines and words from a {@link Reader} through a single reusable buffer.
+ * <p>
+ * {@link #nextLine()} and {@link #nextWord()} return a view into the buffer
+ * that stays valid only until the next call, so no String is allocated unless
+ * the caller asks for one. The buffer grows only to fit the longest line or
+ * word.
+ * <p>
+ * Lines and words are split the same way {@link java.util.Scanner} splits them
+ * by default.
+ */
+final class TextReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 13;
+
+    private final Reader in;
+    private final View view = new View();
+
+    private char[] buf = new char[DEFAULT_BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean skipLF;
+
+    TextReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the next line without its line separator.
+     *
+     * @return a view of the next line or {@code null} at the end of input
+     * @throws IOException if the reader fails
+     */
+    CharSequence nextLine() throws IOException {
+        if (skipLF) {
+            if (pos == limit)
+                fill();
+            if (pos < limit && buf[pos] == '\n')
+                pos++;
+            skipLF = false;
+        }
+
+        int i = pos;
+        while (true) {
+            for (; i < limit; i++) {
+                char c = buf[i];
+                if (c == '\n' || c == '\r' || ByteCounter.isLineSeparator(c)) {
+                    view.set(buf, pos, i - pos);
+                    skipLF = c == '\r';
+                    pos = i + 1;
+                    return view;
+                }
+            }
+            int scanned = i - pos;
+            if (!fill()) {
+                if (pos == limit)
+                    return null;
+                view.set(buf, pos, limit - pos);
+                pos = limit;
+                return view;
+            }
+            i = pos + scanned;
+        }
+    }
+
+    /**
+     * Returns the next word. Words are seperated by whitespace.
+     *
+     * @return a view of the next word or {@code null} at the end of input
+     * @throws IOException if the reader fails
+     */
+    CharSequence nextWord() throws IOException {
+        skipLF = false;
+        while (true) {
+            while (pos < limit && Character.isWhitespace(buf[pos])) {
+                pos++;
+            }
+            if (pos < limit)
+                break;
+            if (!fill())
+                return null;
+        }
+
+        int i = pos + 1;
+        while (true) {
+            while (i < limit && !Character.isWhitespace(buf[i])) {
+                i++;
+            }
+            if (i < limit)
+                break;
+            int scanned = i - pos;
+            boolean more = fill();
+            i = pos + scanned;
+            if (!more)
+                break;
+        }
+        view.set(buf, pos, i - pos);
+        pos = i;
+        return view;
+    }
+
+    /*
+     * Reads more characters, keeping the unconsumed ones at the start of the
+     * buffer. Returns false if nothing more could be read.
+     */
+    private boolean fill() throws IOException {
+        if (eof)
+            return false;
+
+        int remaining = limit - pos;
+        if (remaining == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        } else if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, remaining);
+        }
+        pos = 0;
+        limit = remaining;
+
+        int n;
+        do {
+            n = in.read(buf, limit, buf.length - limit);
+        } while (n == 0);
+
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * A reusable window over the buffer.
+     */
+    private static final class View implements CharSequence {
+        private char[] chars;
+        private int offset;
+        private int length;
+
+        void set(char[] chars, int offset, int length) {
+            this.chars = chars;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length)
+                throw new IndexOutOfBoundsException("Index out of range: " + index);
+            return chars[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end)
+                throw new IndexOutOfBoundsException("Range out of bounds: [" + start + ", " + end + ")");
+            return new String(chars, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, offset, length);
+        }
+    }
+}